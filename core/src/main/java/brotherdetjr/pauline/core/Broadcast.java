@@ -0,0 +1,188 @@
+package brotherdetjr.pauline.core;
+
+import com.google.common.util.concurrent.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+
+import static brotherdetjr.utils.Utils.propagateIfError;
+import static com.google.common.base.Throwables.getStackTraceAsString;
+import static java.util.concurrent.CompletableFuture.allOf;
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+public class Broadcast {
+	private static final Logger log = LoggerFactory.getLogger(Broadcast.class);
+
+	private final Map<Long, Session> sessions;
+	private final Predicate<Object> statePredicate;
+	private final BroadcastSender sender;
+	private final AtomicLong scanned = new AtomicLong();
+	private final AtomicLong matched = new AtomicLong();
+	private final AtomicLong sent = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private int batchSize = 1000;
+	private int maxInFlight;
+	private RateLimiter rateLimiter;
+	private long resumeAfter = Long.MIN_VALUE;
+	private LongConsumer checkpoint = ignore -> {
+	};
+	private volatile long lastCheckpoint = Long.MIN_VALUE;
+	private volatile long total;
+	private volatile long startedNanos;
+	private volatile long finishedNanos;
+	private volatile boolean cancelled;
+
+	public Broadcast(Map<Long, Session> sessions, Predicate<Object> statePredicate, BroadcastSender sender) {
+		this.sessions = sessions;
+		this.statePredicate = statePredicate;
+		this.sender = sender;
+	}
+
+	public Broadcast batchSize(int batchSize) {
+		this.batchSize = batchSize;
+		return this;
+	}
+
+	public Broadcast maxInFlight(int maxInFlight) {
+		this.maxInFlight = maxInFlight;
+		return this;
+	}
+
+	public Broadcast rate(double messagesPerSecond) {
+		rateLimiter = RateLimiter.create(messagesPerSecond);
+		return this;
+	}
+
+	public Broadcast resumeAfter(long sessionId) {
+		resumeAfter = sessionId;
+		return this;
+	}
+
+	public Broadcast checkpoint(LongConsumer checkpoint) {
+		this.checkpoint = checkpoint;
+		return this;
+	}
+
+	public CompletableFuture<Void> start(Executor executor) {
+		return runAsync(this::run, executor);
+	}
+
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public long getScanned() {
+		return scanned.get();
+	}
+
+	public long getMatched() {
+		return matched.get();
+	}
+
+	public long getSent() {
+		return sent.get();
+	}
+
+	public long getFailed() {
+		return failed.get();
+	}
+
+	public long getLastCheckpoint() {
+		return lastCheckpoint;
+	}
+
+	public boolean isDone() {
+		return finishedNanos != 0L;
+	}
+
+	public double getThroughput() {
+		long started = startedNanos;
+		long elapsed = (finishedNanos != 0L ? finishedNanos : System.nanoTime()) - started;
+		return started != 0L && elapsed > 0 ? (double) sent.get() * SECONDS.toNanos(1) / elapsed : 0.0;
+	}
+
+	private void run() {
+		startedNanos = System.nanoTime();
+		long[] ids = sessions.keySet().stream()
+			.mapToLong(Long::longValue)
+			.filter(id -> id > resumeAfter)
+			.sorted()
+			.toArray();
+		total = ids.length;
+		log.debug("Broadcasting to {} sessions after {}", total, resumeAfter);
+		Semaphore inFlight = new Semaphore(inFlightLimit());
+		for (int from = 0; from < ids.length && !cancelled; from += batchSize) {
+			int to = Math.min(from + batchSize, ids.length);
+			sendBatch(ids, from, to, inFlight);
+			lastCheckpoint = ids[to - 1];
+			checkpoint.accept(lastCheckpoint);
+		}
+		finishedNanos = System.nanoTime();
+		log.debug(
+			"Broadcast {}: {} matched, {} sent, {} failed in {} ms",
+			cancelled ? "cancelled" : "finished",
+			matched.get(),
+			sent.get(),
+			failed.get(),
+			NANOSECONDS.toMillis(finishedNanos - startedNanos)
+		);
+	}
+
+	private int inFlightLimit() {
+		if (maxInFlight > 0) {
+			return maxInFlight;
+		}
+		return rateLimiter != null ? Math.max(1, (int) Math.ceil(rateLimiter.getRate())) : batchSize;
+	}
+
+	private void sendBatch(long[] ids, int from, int to, Semaphore inFlight) {
+		List<CompletableFuture<?>> futures = new ArrayList<>(to - from);
+		for (int i = from; i < to; i++) {
+			scanned.incrementAndGet();
+			Session session = sessions.get(ids[i]);
+			Object state = session != null ? session.getState() : null;
+			if (state != null && statePredicate.test(state)) {
+				matched.incrementAndGet();
+				if (rateLimiter != null) {
+					rateLimiter.acquire();
+				}
+				inFlight.acquireUninterruptibly();
+				futures.add(send(ids[i], state).whenComplete((result, ex) -> inFlight.release()));
+			}
+		}
+		allOf(futures.toArray(new CompletableFuture[futures.size()])).exceptionally(ignore -> null).join();
+	}
+
+	private CompletableFuture<?> send(long sessionId, Object state) {
+		try {
+			return sender.send(sessionId, state).whenComplete((result, ex) -> {
+				if (ex == null) {
+					sent.incrementAndGet();
+				} else {
+					failed.incrementAndGet();
+					log.error("Failed to broadcast to session {}: {}", sessionId, getStackTraceAsString(ex));
+				}
+			});
+		} catch (Throwable ex) {
+			failed.incrementAndGet();
+			log.error("Failed to broadcast to session {}: {}", sessionId, getStackTraceAsString(ex));
+			propagateIfError(ex);
+			return CompletableFuture.completedFuture(null);
+		}
+	}
+}
@@ -0,0 +1,8 @@
+package brotherdetjr.pauline.core;
+
+import java.util.concurrent.CompletableFuture;
+
+@FunctionalInterface
+public interface BroadcastSender {
+	CompletableFuture<?> send(long sessionId, Object state);
+}
@@ -0,0 +1,146 @@
+package brotherdetjr.pauline.core;
+
+import brotherdetjr.pauline.events.Event;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import static brotherdetjr.utils.Utils.propagateIfError;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+
+public class Bulkhead {
+	@Getter
+	private final String name;
+	private final Executor executor;
+	@Getter
+	private final int maxConcurrent;
+	@Getter
+	private final int maxQueued;
+	private final Queue<Task<?>> waiting = new ArrayDeque<>();
+	private int active;
+	private int peakQueued;
+	private long accepted;
+	private long rejected;
+
+	public Bulkhead(String name, Executor executor, int maxConcurrent, int maxQueued) {
+		this.name = name;
+		this.executor = executor;
+		this.maxConcurrent = maxConcurrent;
+		this.maxQueued = maxQueued;
+	}
+
+	public static Bulkhead fixed(String name, int threads, int maxQueued) {
+		return new Bulkhead(
+			name,
+			newFixedThreadPool(
+				threads,
+				new ThreadFactoryBuilder().setNameFormat("pauline-bulkhead-" + name + "-%d").setDaemon(true).build()
+			),
+			threads,
+			maxQueued
+		);
+	}
+
+	public <From, To, E extends Event> Controller<From, To, E> guard(Controller<From, To, E> controller) {
+		return new Controller<From, To, E>() {
+			@Override
+			public <R> CompletableFuture<ViewAndState<To, R, E>> transit(E event, From state) {
+				return submit(() -> controller.transit(event, state));
+			}
+		};
+	}
+
+	public <T> CompletableFuture<T> submit(Supplier<? extends CompletableFuture<? extends T>> supplier) {
+		Task<T> task = new Task<>(supplier);
+		synchronized (this) {
+			if (active < maxConcurrent) {
+				active++;
+				accepted++;
+			} else if (waiting.size() < maxQueued) {
+				waiting.add(task);
+				peakQueued = Math.max(peakQueued, waiting.size());
+				accepted++;
+				return task.result;
+			} else {
+				rejected++;
+				task.result.completeExceptionally(new RejectedExecutionException("Bulkhead " + name + " is saturated"));
+				return task.result;
+			}
+		}
+		execute(task);
+		return task.result;
+	}
+
+	public synchronized int getActive() {
+		return active;
+	}
+
+	public synchronized int getQueued() {
+		return waiting.size();
+	}
+
+	public synchronized int getPeakQueued() {
+		return peakQueued;
+	}
+
+	public synchronized long getAccepted() {
+		return accepted;
+	}
+
+	public synchronized long getRejected() {
+		return rejected;
+	}
+
+	private void execute(Task<?> task) {
+		try {
+			executor.execute(task::run);
+		} catch (Throwable ex) {
+			task.result.completeExceptionally(ex);
+			release();
+			propagateIfError(ex);
+		}
+	}
+
+	private void release() {
+		Task<?> next;
+		synchronized (this) {
+			next = waiting.poll();
+			if (next == null) {
+				active--;
+			}
+		}
+		if (next != null) {
+			execute(next);
+		}
+	}
+
+	@RequiredArgsConstructor
+	private class Task<T> {
+		private final Supplier<? extends CompletableFuture<? extends T>> supplier;
+		private final CompletableFuture<T> result = new CompletableFuture<>();
+
+		private void run() {
+			try {
+				supplier.get().whenComplete((value, ex) -> {
+					release();
+					if (ex == null) {
+						result.complete(value);
+					} else {
+						result.completeExceptionally(ex);
+					}
+				});
+			} catch (Throwable ex) {
+				release();
+				result.completeExceptionally(ex);
+				propagateIfError(ex);
+			}
+		}
+	}
+}
@@ -1,5 +1,12 @@
 package brotherdetjr.pauline.core;
 
+import brotherdetjr.pauline.core.dedup.Dedup;
+import brotherdetjr.pauline.core.dedup.DedupIndex;
+import brotherdetjr.pauline.core.eventlog.EventLog;
+import brotherdetjr.pauline.core.timer.Timers;
+import brotherdetjr.pauline.core.trace.Span;
+import brotherdetjr.pauline.core.trace.Trace;
+import brotherdetjr.pauline.core.trace.Tracer;
 import brotherdetjr.pauline.events.Event;
 import brotherdetjr.pauline.events.EventSource;
 import com.google.common.util.concurrent.Striped;
@@ -12,9 +19,13 @@ import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.locks.Lock;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
 import static brotherdetjr.utils.Utils.checkNotNull;
 import static brotherdetjr.utils.Utils.propagateIfError;
@@ -26,126 +37,247 @@ import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static java.util.Arrays.asList;
 import static java.util.Objects.requireNonNull;
 import static java.util.Optional.ofNullable;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 public class Flow<Renderer, E extends Event> {
 	private final EventSource<E> eventSource;
+	private final Timers<E> timers;
 	private final Dispatcher<E> dispatcher;
 	private final View<Throwable, Renderer, E> failView;
 	private final Executor executor;
 	private final Map<Long, Session> sessions;
 	private final Function<E, Renderer> rendererFactory;
+	private final Consumer<E> onProcessed;
 	private final Striped<Lock> striped;
+	private final SessionSnapshot.Epochs epochs = new SessionSnapshot.Epochs();
+	private final Tracer tracer;
 	private final Logger log;
+	private final boolean logFailureTraces;
 
 	public Flow(EventSource<E> eventSource,
+				Timers<E> timers,
 				Dispatcher<E> dispatcher,
 				View<Throwable, Renderer, E> failView,
 				Executor executor,
 				Map<Long, Session> sessions,
 				int stripes,
 				Function<E, Renderer> rendererFactory,
+				Consumer<E> onProcessed,
+				Tracer tracer,
+				boolean logFailureTraces,
 				Logger log) {
 		this.eventSource = eventSource;
+		this.timers = timers;
 		this.dispatcher = dispatcher;
 		this.failView = failView;
 		this.executor = executor;
 		this.sessions = sessions;
 		this.rendererFactory = rendererFactory;
+		this.onProcessed = onProcessed;
 		striped = Striped.lock(stripes);
+		this.tracer = tracer;
 		this.log = log;
+		this.logFailureTraces = logFailureTraces;
 	}
 
 	public void init() {
-		eventSource.onEvent(this::handleInExecutor);
+		eventSource.onEvent(event -> handleInExecutor(event, this::rejectSpam));
+		if (timers != null) {
+			timers.onEvent(event -> handleInExecutor(event, this::deferTimer));
+		}
+	}
+
+	public SessionSnapshot snapshot() {
+		return epochs.open(sessions);
 	}
 
-	private void handleInExecutor(E event) {
+	public Broadcast broadcast(Predicate<Object> statePredicate, BroadcastSender sender) {
+		return new Broadcast(sessions, statePredicate, sender);
+	}
+
+	private void handleInExecutor(E event, BiConsumer<E, Trace> onBusy) {
+		Trace trace = startTrace(event);
 		try {
 			log.debug("Received event {}", event);
+			Span queued = trace.span("queue");
 			executor.execute(() -> {
+				queued.end();
 				try {
-					handle(event);
+					handle(event, trace, onBusy);
 				} catch (Throwable ex) {
-					log.error("Failed to process event {}: {}", event, getStackTraceAsString(ex));
+					log.error("Failed to process event {}: {}", event, causeOf(ex));
 					propagateIfError(ex);
-					renderFail(ex, event);
+					renderFail(ex, event, trace);
 				}
 			});
 		} catch (Throwable ex) {
-			log.error("Failed to execute event handling. Event: {}. Cause: {}", event, getStackTraceAsString(ex));
+			log.error("Failed to execute event handling. Event: {}. Cause: {}", event, causeOf(ex));
+			propagateIfError(ex);
+			renderFail(ex, event, trace);
+		}
+	}
+
+	private Trace startTrace(E event) {
+		try {
+			return tracer.start(event);
+		} catch (Throwable ex) {
 			propagateIfError(ex);
-			renderFail(ex, event);
+			return Trace.NOOP;
 		}
 	}
 
-	private void renderFail(Throwable ex, E event) {
+	private void renderFail(Throwable ex, E event, Trace trace) {
+		Span span = trace.span("renderFail");
 		try {
-			failView.render(View.Context.of(ex, rendererFactory.apply(event), event));
+			trace.runAsCurrent(() -> failView.render(View.Context.of(ex, rendererFactory.apply(event), event)));
 		} catch (Throwable ex2) {
 			log.error("Failed to process event {} and to render it: {}", event, getStackTraceAsString(ex2));
 			propagateIfError(ex2);
+		} finally {
+			span.end();
+			processed(event);
 		}
 	}
 
-	private void handle(E event) {
+	private String causeOf(Throwable ex) {
+		return logFailureTraces ? getStackTraceAsString(ex) : String.valueOf(ex);
+	}
+
+	private void processed(E event) {
+		try {
+			onProcessed.accept(event);
+		} catch (Throwable ex) {
+			log.error("Failed to acknowledge processed event {}: {}", event, getStackTraceAsString(ex));
+			propagateIfError(ex);
+		}
+	}
+
+	private void handle(E event, Trace trace, BiConsumer<E, Trace> onBusy) {
 		long sessionId = event.getSessionId();
-		synched(sessionId, session -> {
+		synched(sessionId, trace, session -> {
 			if (session != null) {
-				processIfNotBusy(event);
+				processIfNotBusy(event, trace, onBusy);
 			} else {
 				log.debug("Registering session {}", sessionId);
-				initSessionAndProcess(event);
+				initSessionAndProcess(event, trace);
 			}
 		});
 	}
 
 	@SuppressWarnings("SuspiciousMethodCalls")
-	private void processIfNotBusy(E event) {
+	private void processIfNotBusy(E event, Trace trace, BiConsumer<E, Trace> onBusy) {
 		Session session = sessions.get(event.getSessionId());
 		if (!session.isBusy()) {
 			Controller<Object, ?, E> controller = dispatcher.dispatch(event, session.getState());
-			session.setBusy(true);
-			process(event, controller.transit(event, session.getState()));
+			if (controller instanceof SyncController) {
+				transitAndRender(event, trace, session, (SyncController<Object, ?, E>) controller);
+			} else {
+				session.setBusy(true);
+				process(event, trace, session, () -> controller.transit(event, session.getState()));
+			}
 		} else {
-			log.error("Looks like somebody spamming us. Event: {}", event);
-			renderFail(new IllegalStateException("Wait, not so fast!"), event);
+			onBusy.accept(event, trace);
 		}
 	}
 
-	private Session initSessionAndProcess(E event) {
+	private void rejectSpam(E event, Trace trace) {
+		log.error("Looks like somebody spamming us. Event: {}", event);
+		renderFail(new IllegalStateException("Wait, not so fast!"), event, trace);
+	}
+
+	private void deferTimer(E event, Trace trace) {
+		log.debug("Session {} is busy, deferring timer event {}", event.getSessionId(), event);
+		timers.schedule(event, timers.getTickMillis(), MILLISECONDS);
+	}
+
+	private Session initSessionAndProcess(E event, Trace trace) {
 		Session session = new Session(null, true);
 		sessions.put(event.getSessionId(), session);
-		process(event, dispatcher.dispatch(event).transit(event));
+		Controller<Object, ?, E> controller = dispatcher.dispatch(event);
+		if (controller instanceof SyncController) {
+			transitAndRender(event, trace, session, (SyncController<Object, ?, E>) controller);
+		} else {
+			process(event, trace, session, () -> controller.transit(event));
+		}
 		return session;
 	}
 
-	private void process(E event, CompletableFuture<? extends ViewAndState<?, Renderer, E>> future) {
-		future.whenComplete((viewAndState, ex) -> executor.execute(() -> {
-			if (ex == null) {
-				freeSessionAndRender(event, viewAndState);
-			} else {
-				log.error("Failed to perform transition by event {}. Cause: {}", event, getStackTraceAsString(ex));
-				renderFail(ex, event);
-			}
-		}));
+	private void transitAndRender(E event, Trace trace, Session session, SyncController<Object, ?, E> controller) {
+		Span transit = trace.span("transit");
+		ViewAndState<?, Renderer, E> viewAndState;
+		try {
+			viewAndState = controller.transitNow(event, session.getState());
+		} catch (Throwable ex) {
+			log.error("Failed to perform transition by event {}. Cause: {}", event, causeOf(ex));
+			propagateIfError(ex);
+			session.setBusy(false);
+			renderFail(ex, event, trace);
+			return;
+		} finally {
+			transit.end();
+		}
+		render(event, trace, viewAndState);
 	}
 
-	private void freeSessionAndRender(E event, ViewAndState<?, Renderer, E> viewAndState) {
-		synched(event.getSessionId(), ignore -> {
+	private void process(E event,
+						 Trace trace,
+						 Session session,
+						 Supplier<CompletableFuture<? extends ViewAndState<?, Renderer, E>>> transition) {
+		Span transit = trace.span("transit");
+		CompletableFuture<? extends ViewAndState<?, Renderer, E>> future = null;
+		try {
+			future = transition.get();
+		} finally {
+			if (future == null) {
+				session.setBusy(false);
+				transit.end();
+			}
+		}
+		future.whenComplete((viewAndState, ex) -> {
+			transit.end();
+			Span queued = trace.span("queue");
 			try {
-				freeSession(event, viewAndState);
-				viewAndState.render(rendererFactory.apply(event), event);
-			} catch (Throwable ex) {
-				log.error("Failed to render view. Event: {}. Cause: {}", event, getStackTraceAsString(ex));
-				propagateIfError(ex);
-				renderFail(ex, event);
+				executor.execute(() -> {
+					queued.end();
+					if (ex == null) {
+						freeSessionAndRender(event, trace, viewAndState);
+					} else {
+						log.error("Failed to perform transition by event {}. Cause: {}", event, causeOf(ex));
+						synched(event.getSessionId(), trace, ignore -> session.setBusy(false));
+						renderFail(ex, event, trace);
+					}
+				});
+			} catch (Throwable ex2) {
+				log.error("Failed to execute completion of event {}. Cause: {}", event, causeOf(ex2));
+				synched(event.getSessionId(), trace, ignore -> session.setBusy(false));
+				propagateIfError(ex2);
+				renderFail(ex2, event, trace);
 			}
 		});
 	}
 
+	private void freeSessionAndRender(E event, Trace trace, ViewAndState<?, Renderer, E> viewAndState) {
+		synched(event.getSessionId(), trace, ignore -> render(event, trace, viewAndState));
+	}
+
+	private void render(E event, Trace trace, ViewAndState<?, Renderer, E> viewAndState) {
+		Span render = trace.span("render");
+		try {
+			freeSession(event, viewAndState);
+			trace.runAsCurrent(() -> viewAndState.render(rendererFactory.apply(event), event));
+			processed(event);
+		} catch (Throwable ex) {
+			log.error("Failed to render view. Event: {}. Cause: {}", event, causeOf(ex));
+			propagateIfError(ex);
+			renderFail(ex, event, trace);
+		} finally {
+			render.end();
+		}
+	}
+
 	private void freeSession(E event, ViewAndState<?, Renderer, E> viewAndState) {
 		Session session = sessions.get(event.getSessionId());
-		session.setState(viewAndState.getState());
+		epochs.write(session, viewAndState.getState());
 		session.setBusy(false);
 		log.debug(
 			"Set new state for session {}: {}. View key: {}",
@@ -155,10 +287,12 @@ public class Flow<Renderer, E extends Event> {
 		);
 	}
 
-	private void synched(Long userId, Consumer<Session> consumer) {
+	private void synched(Long userId, Trace trace, Consumer<Session> consumer) {
+		Span locking = trace.span("lock");
 		Lock lock = striped.get(userId);
 		try {
 			lock.lock();
+			locking.end();
 			consumer.accept(sessions.get(userId));
 		} finally {
 			lock.unlock();
@@ -175,6 +309,12 @@ public class Flow<Renderer, E extends Event> {
 		private Map<Long, Session> sessions = newConcurrentMap();
 		private int stripes = 1000;
 		private Function<E, Renderer> rendererFactory;
+		private Tracer tracer = Tracer.NOOP;
+		private Timers<E> timers;
+		private DedupIndex dedupIndex;
+		private ToLongFunction<E> eventId;
+		private EventLog<E> eventLog;
+		private boolean logFailureTraces = true;
 		private Logger log = LoggerFactory.getLogger(Flow.class);
 
 		private Controller<?, ?, E> initial;
@@ -182,6 +322,7 @@ public class Flow<Renderer, E extends Event> {
 		@RequiredArgsConstructor
 		public class Handle<E1 extends E> {
 			private final Class<E1> eventClass;
+			private final Bulkhead bulkhead;
 
 			public <From> Builder<Renderer, E> with(BiFunction<E1, From, CompletableFuture<?>> func) {
 				return new When<From>().with(func);
@@ -195,6 +336,10 @@ public class Flow<Renderer, E extends Event> {
 				return with(func);
 			}
 
+			public <From> Builder<Renderer, E> sync(BiFunction<E1, From, ?> func) {
+				return new When<From>().sync(func);
+			}
+
 			public <From> When<From> when(From state) {
 				return new When<>(state);
 			}
@@ -230,13 +375,29 @@ public class Flow<Renderer, E extends Event> {
 							return toViewAndState((CompletableFuture<To>) func.apply(e, s));
 						}
 					};
+					return register(controller);
+				}
+
+				@SuppressWarnings("unchecked")
+				public <To> Builder<Renderer, E> sync(BiFunction<E1, From, ?> func) {
+					SyncController<From, To, E1> controller = new SyncController<From, To, E1>() {
+						@Override
+						public <R> ViewAndState<To, R, E1> transitNow(E1 e, From s) {
+							return toViewAndState((To) func.apply(e, s));
+						}
+					};
+					return register(controller);
+				}
+
+				private Builder<Renderer, E> register(Controller<From, ?, E1> controller) {
+					Controller<From, ?, E1> guarded = bulkhead != null ? bulkhead.guard(controller) : controller;
 					Class<E1> eventClass = Handle.this.eventClass;
 					if (state != null) {
-						controllers.put(eventClass, state, controller);
+						controllers.put(eventClass, state, guarded);
 					} else if (stateClass != null) {
-						controllers.put(eventClass, stateClass, controller);
+						controllers.put(eventClass, stateClass, guarded);
 					} else {
-						controllers.put(eventClass, controller);
+						controllers.put(eventClass, guarded);
 					}
 					return Builder.this;
 				}
@@ -264,12 +425,16 @@ public class Flow<Renderer, E extends Event> {
 		}
 
 		public <E1 extends E> Handle<E1> handle(Class<E1> eventClass) {
-			return new Handle<>(eventClass);
+			return new Handle<>(eventClass, null);
+		}
+
+		public <E1 extends E> Handle<E1> handle(Class<E1> eventClass, Bulkhead bulkhead) {
+			return new Handle<>(eventClass, bulkhead);
 		}
 
 		@SuppressWarnings("unchecked")
 		public <E1 extends E> Handle<E1> handle() {
-			return new Handle<>((Class<E1>) Event.class);
+			return new Handle<>((Class<E1>) Event.class, null);
 		}
 
 		public <To> Builder<Renderer, E> initialController(Controller<Void, To, E> initial) {
@@ -286,6 +451,15 @@ public class Flow<Renderer, E extends Event> {
 			});
 		}
 
+		public <To> Builder<Renderer, E> initialSync(Function<E, To> func) {
+			return initialController(new SyncController<Void, To, E>() {
+				@Override
+				public <R> ViewAndState<To, R, E> transitNow(E e, Void s) {
+					return toViewAndState(func.apply(e));
+				}
+			});
+		}
+
 		public <To> Builder<Renderer, E> initial(
 			Function<E, CompletableFuture<To>> func,
 			@SuppressWarnings("UnusedParameters") Class<To> probe) {
@@ -299,6 +473,7 @@ public class Flow<Renderer, E extends Event> {
 
 		public Builder<Renderer, E> eventSource(EventSource<E> eventSource) {
 			this.eventSource = eventSource;
+		this.timers = timers;
 			return this;
 		}
 
@@ -329,6 +504,32 @@ public class Flow<Renderer, E extends Event> {
 			return this;
 		}
 
+		public Builder<Renderer, E> timers(Timers<E> timers) {
+			this.timers = timers;
+			return this;
+		}
+
+		public Builder<Renderer, E> dedup(DedupIndex dedupIndex, ToLongFunction<E> eventId) {
+			this.dedupIndex = dedupIndex;
+			this.eventId = eventId;
+			return this;
+		}
+
+		public Builder<Renderer, E> eventLog(EventLog<E> eventLog) {
+			this.eventLog = eventLog;
+			return this;
+		}
+
+		public Builder<Renderer, E> tracer(Tracer tracer) {
+			this.tracer = tracer;
+			return this;
+		}
+
+		public Builder<Renderer, E> logFailureTraces(boolean logFailureTraces) {
+			this.logFailureTraces = logFailureTraces;
+			return this;
+		}
+
 		public Builder<Renderer, E> log(Logger log) {
 			this.log = log;
 			return this;
@@ -336,14 +537,29 @@ public class Flow<Renderer, E extends Event> {
 
 		public Flow<Renderer, E> build(boolean initialized) {
 			checkNotNull(rendererFactory, eventSource, initial, failView);
+			Consumer<E> onProcessed = ignore -> {
+			};
+			EventSource<E> deduped = dedupIndex != null ?
+				new Dedup<>(eventSource, dedupIndex, eventId) :
+				eventSource;
+			EventSource<E> logged = deduped;
+			if (eventLog != null) {
+				eventLog.ingest(deduped);
+				logged = eventLog;
+				onProcessed = eventLog::commit;
+			}
 			Flow<Renderer, E> flow = new Flow<>(
-				eventSource,
+				logged,
+				timers,
 				newDispatcher(),
 				failView,
 				executor,
 				sessions,
 				stripes,
 				rendererFactory,
+				onProcessed,
+				tracer,
+				logFailureTraces,
 				log
 			);
 			if (initialized) {
@@ -377,15 +593,18 @@ public class Flow<Renderer, E extends Event> {
 		@SuppressWarnings("unchecked")
 		private <To, R, E1 extends E> CompletableFuture<ViewAndState<To, R, E1>> toViewAndState(
 			CompletableFuture<To> future) {
-			return future.thenApply(n ->
-				ViewAndState.of(
-					ofNullable(
-						searchInHierarchy(n.getClass(), c -> (View<To, R, E1>) views.get(c))
-					).orElseThrow(() -> new IllegalStateException(
-						"No view defined for state class " + n.getClass().getName())
-					),
-					n
-				)
+			return future.thenApply(this::toViewAndState);
+		}
+
+		@SuppressWarnings("unchecked")
+		private <To, R, E1 extends E> ViewAndState<To, R, E1> toViewAndState(To state) {
+			return ViewAndState.of(
+				ofNullable(
+					searchInHierarchy(state.getClass(), c -> (View<To, R, E1>) views.get(c))
+				).orElseThrow(() -> new IllegalStateException(
+					"No view defined for state class " + state.getClass().getName())
+				),
+				state
 			);
 		}
 	}
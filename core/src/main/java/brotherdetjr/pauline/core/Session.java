@@ -1,15 +1,61 @@
 package brotherdetjr.pauline.core;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
-import lombok.ToString;
 
-@Getter
-@Setter
-@AllArgsConstructor
-@ToString
 public class Session {
-	private volatile Object state;
+	private volatile Version version;
+	@Getter
+	@Setter
 	private volatile boolean busy;
+
+	public Session(Object state, boolean busy) {
+		version = new Version(state, 0, null);
+		this.busy = busy;
+	}
+
+	public Object getState() {
+		return version.state;
+	}
+
+	void setState(Object state) {
+		setState(state, 0, Long.MAX_VALUE);
+	}
+
+	void setState(Object state, long epoch, long oldestSnapshotEpoch) {
+		Version head = new Version(state, epoch, version);
+		for (Version v = head; v != null; v = v.older) {
+			if (v.epoch <= oldestSnapshotEpoch) {
+				v.older = null;
+				break;
+			}
+		}
+		version = head;
+	}
+
+	Object getState(long snapshotEpoch) {
+		for (Version v = version; v != null; v = v.older) {
+			if (v.epoch <= snapshotEpoch) {
+				return v.state;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public String toString() {
+		return "Session(state=" + getState() + ", busy=" + busy + ")";
+	}
+
+	private static class Version {
+		private final Object state;
+		private final long epoch;
+		private volatile Version older;
+
+		private Version(Object state, long epoch, Version older) {
+			this.state = state;
+			this.epoch = epoch;
+			this.older = older;
+		}
+	}
 }
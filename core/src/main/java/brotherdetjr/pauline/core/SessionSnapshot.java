@@ -0,0 +1,90 @@
+package brotherdetjr.pauline.core;
+
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class SessionSnapshot implements Closeable {
+	@Getter
+	private final long epoch;
+	private final Map<Long, Session> sessions;
+	private final Epochs epochs;
+	private final AtomicBoolean closed = new AtomicBoolean();
+
+	private SessionSnapshot(long epoch, Map<Long, Session> sessions, Epochs epochs) {
+		this.epoch = epoch;
+		this.sessions = sessions;
+		this.epochs = epochs;
+	}
+
+	public Stream<SessionState> stream() {
+		return stream(false);
+	}
+
+	public Stream<SessionState> parallelStream() {
+		return stream(true);
+	}
+
+	public Spliterator<SessionState> spliterator() {
+		return stream().spliterator();
+	}
+
+	@Override
+	public void close() {
+		if (closed.compareAndSet(false, true)) {
+			epochs.release(epoch);
+		}
+	}
+
+	private Stream<SessionState> stream(boolean parallel) {
+		return StreamSupport.stream(sessions.entrySet().spliterator(), parallel)
+			.map(e -> {
+				Object state = e.getValue().getState(epoch);
+				return state != null ? new SessionState(e.getKey(), state) : null;
+			})
+			.filter(Objects::nonNull);
+	}
+
+	static class Epochs {
+		private final AtomicLong current = new AtomicLong(1);
+		private final TreeMap<Long, Integer> open = new TreeMap<>();
+		private final ReadWriteLock lock = new ReentrantReadWriteLock();
+		private volatile long oldestOpen = Long.MAX_VALUE;
+
+		void write(Session session, Object state) {
+			lock.readLock().lock();
+			try {
+				session.setState(state, current.get(), oldestOpen);
+			} finally {
+				lock.readLock().unlock();
+			}
+		}
+
+		synchronized SessionSnapshot open(Map<Long, Session> sessions) {
+			lock.writeLock().lock();
+			try {
+				long epoch = current.getAndIncrement();
+				open.merge(epoch, 1, Integer::sum);
+				oldestOpen = open.firstKey();
+				return new SessionSnapshot(epoch, sessions, this);
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+
+		private synchronized void release(long epoch) {
+			open.computeIfPresent(epoch, (ignore, count) -> count > 1 ? count - 1 : null);
+			oldestOpen = open.isEmpty() ? Long.MAX_VALUE : open.firstKey();
+		}
+	}
+}
@@ -0,0 +1,13 @@
+package brotherdetjr.pauline.core;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@RequiredArgsConstructor
+@ToString
+public class SessionState {
+	private final long sessionId;
+	private final Object state;
+}
@@ -0,0 +1,22 @@
+package brotherdetjr.pauline.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.collect.Maps.newConcurrentMap;
+
+public class SessionStore {
+	private final ConcurrentMap<String, Map<Long, Session>> namespaces = newConcurrentMap();
+
+	public Map<Long, Session> namespace(String name) {
+		return namespaces.computeIfAbsent(name, ignore -> newConcurrentMap());
+	}
+
+	public void remove(String name) {
+		namespaces.remove(name);
+	}
+
+	public long size() {
+		return namespaces.values().stream().mapToLong(Map::size).sum();
+	}
+}
@@ -0,0 +1,25 @@
+package brotherdetjr.pauline.core;
+
+import brotherdetjr.pauline.events.Event;
+
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+@FunctionalInterface
+public interface SyncController<From, To, E extends Event> extends Controller<From, To, E> {
+
+	<Renderer> ViewAndState<To, Renderer, E> transitNow(E event, From state);
+
+	@Override
+	default <Renderer> CompletableFuture<ViewAndState<To, Renderer, E>> transit(E event, From state) {
+		try {
+			return completedFuture(transitNow(event, state));
+		} catch (RuntimeException ex) {
+			CompletableFuture<ViewAndState<To, Renderer, E>> failed = new CompletableFuture<>();
+			failed.completeExceptionally(ex);
+			return failed;
+		}
+	}
+
+}
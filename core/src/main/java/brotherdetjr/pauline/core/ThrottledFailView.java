@@ -0,0 +1,126 @@
+package brotherdetjr.pauline.core;
+
+import brotherdetjr.pauline.events.Event;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static brotherdetjr.utils.Utils.propagateIfError;
+import static com.google.common.base.Throwables.getCausalChain;
+import static com.google.common.base.Throwables.getStackTraceAsString;
+import static java.lang.Boolean.TRUE;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+
+public class ThrottledFailView<Renderer, E extends Event> implements View<Throwable, Renderer, E>, Closeable {
+	public static final long DEFAULT_MAXIMUM_SIZE = 100_000;
+
+	private final View<Throwable, Renderer, E> delegate;
+	private final Executor executor;
+	private final Cache<Long, Boolean> recentlyRendered;
+	private final Cache<List<Object>, AtomicInteger> recentlyLogged;
+	private final Logger log;
+	private ScheduledFuture<?> cleanUps;
+
+	public ThrottledFailView(View<Throwable, Renderer, E> delegate,
+							 Executor executor,
+							 long interval,
+							 TimeUnit unit,
+							 long maximumSize,
+							 Ticker ticker,
+							 Logger log) {
+		this.delegate = delegate;
+		this.executor = executor;
+		this.log = log;
+		recentlyRendered = CacheBuilder.newBuilder()
+			.expireAfterWrite(interval, unit)
+			.maximumSize(maximumSize)
+			.ticker(ticker)
+			.build();
+		recentlyLogged = CacheBuilder.newBuilder()
+			.expireAfterWrite(interval, unit)
+			.maximumSize(maximumSize)
+			.ticker(ticker)
+			.<List<Object>, AtomicInteger>removalListener(n -> {
+				if (n.getCause() != RemovalCause.REPLACED && n.getValue().get() > 0) {
+					log.error("Failure {} repeated {} more time(s)", n.getKey().get(0), n.getValue().get());
+				}
+			})
+			.build();
+	}
+
+	public ThrottledFailView(View<Throwable, Renderer, E> delegate,
+							 ScheduledExecutorService executor,
+							 long interval,
+							 TimeUnit unit) {
+		this(
+			delegate,
+			executor,
+			interval,
+			unit,
+			DEFAULT_MAXIMUM_SIZE,
+			Ticker.systemTicker(),
+			LoggerFactory.getLogger(ThrottledFailView.class)
+		);
+		cleanUps = executor.scheduleAtFixedRate(this::cleanUp, interval, interval, unit);
+	}
+
+	@Override
+	public void render(Context<Throwable, Renderer, E> ctx) {
+		logOncePerInterval(ctx.getState());
+		if (recentlyRendered.asMap().putIfAbsent(ctx.getEvent().getSessionId(), TRUE) == null) {
+			executor.execute(() -> {
+				try {
+					delegate.render(ctx);
+				} catch (Throwable ex) {
+					log.error("Failed to render failure for event {}: {}", ctx.getEvent(), getStackTraceAsString(ex));
+					propagateIfError(ex);
+				}
+			});
+		}
+	}
+
+	public void cleanUp() {
+		try {
+			recentlyRendered.cleanUp();
+			recentlyLogged.cleanUp();
+		} catch (Throwable ex) {
+			log.error("Failed to clean up throttled failures: {}", getStackTraceAsString(ex));
+			propagateIfError(ex);
+		}
+	}
+
+	@Override
+	public void close() {
+		if (cleanUps != null) {
+			cleanUps.cancel(false);
+		}
+		recentlyLogged.invalidateAll();
+	}
+
+	private void logOncePerInterval(Throwable ex) {
+		AtomicInteger repeats = recentlyLogged.asMap().putIfAbsent(signatureOf(ex), new AtomicInteger());
+		if (repeats == null) {
+			log.error("Failure {}: {}", ex, getStackTraceAsString(ex));
+		} else {
+			repeats.incrementAndGet();
+		}
+	}
+
+	private static List<Object> signatureOf(Throwable ex) {
+		return getCausalChain(ex).stream()
+			.flatMap(t -> asList(t.getClass().getName(), asList(t.getStackTrace())).stream())
+			.collect(toList());
+	}
+}
@@ -0,0 +1,50 @@
+package brotherdetjr.pauline.core.dedup;
+
+import brotherdetjr.pauline.events.Event;
+import brotherdetjr.pauline.events.EventSource;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+import static brotherdetjr.utils.Utils.propagateIfError;
+import static com.google.common.base.Throwables.getStackTraceAsString;
+
+@RequiredArgsConstructor
+public class Dedup<E extends Event> implements EventSource<E> {
+	private static final Logger log = LoggerFactory.getLogger(Dedup.class);
+
+	private final EventSource<E> eventSource;
+	private final DedupIndex index;
+	private final ToLongFunction<E> eventId;
+	private final AtomicLong dropped = new AtomicLong();
+
+	@Override
+	public void onEvent(Consumer<E> handler) {
+		eventSource.onEvent(event -> {
+			if (firstSeen(event)) {
+				handler.accept(event);
+			} else {
+				dropped.incrementAndGet();
+				log.debug("Dropping duplicate event {}", event);
+			}
+		});
+	}
+
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	private boolean firstSeen(E event) {
+		try {
+			return index.firstSeen(event.getSessionId(), eventId.applyAsLong(event));
+		} catch (Throwable ex) {
+			log.error("Failed to check event {} for duplicates: {}", event, getStackTraceAsString(ex));
+			propagateIfError(ex);
+			return true;
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package brotherdetjr.pauline.core.dedup;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.LongSupplier;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+public class DedupIndex {
+	private static final int FORMAT_VERSION = 1;
+	private static final Funnel<long[]> KEY_FUNNEL = (key, into) -> into.putLong(key[0]).putLong(key[1]);
+
+	private final long generationMillis;
+	private final int expectedPerGeneration;
+	private final double fpp;
+	private final int recentPerSession;
+	private final LongSupplier clock;
+	private final Cache<Long, RecentIds> recent;
+	private BloomFilter<long[]> current;
+	private BloomFilter<long[]> previous;
+	private long currentStartedMillis;
+	private int currentCount;
+
+	public DedupIndex(long windowMillis,
+					  int expectedPerWindow,
+					  double fpp,
+					  int recentPerSession,
+					  long maxSessions,
+					  LongSupplier clock) {
+		generationMillis = windowMillis / 2;
+		expectedPerGeneration = Math.max(1, expectedPerWindow / 2);
+		this.fpp = fpp;
+		this.recentPerSession = recentPerSession;
+		this.clock = clock;
+		recent = CacheBuilder.newBuilder()
+			.expireAfterAccess(windowMillis, MILLISECONDS)
+			.maximumSize(maxSessions)
+			.build();
+		current = newFilter();
+		previous = newFilter();
+		currentStartedMillis = clock.getAsLong();
+	}
+
+	public DedupIndex(long windowMillis, int expectedPerWindow) {
+		this(windowMillis, expectedPerWindow, 1e-6, 32, 100_000, System::currentTimeMillis);
+	}
+
+	public synchronized boolean firstSeen(long sessionId, long eventId) {
+		rotateIfNeeded();
+		long[] key = {sessionId, eventId};
+		RecentIds ids = recent.getIfPresent(sessionId);
+		boolean maybeSeen = current.mightContain(key) || previous.mightContain(key);
+		if (maybeSeen && (ids == null || ids.isOverflown() || ids.contains(eventId))) {
+			return false;
+		}
+		if (ids == null) {
+			ids = new RecentIds(recentPerSession);
+			recent.put(sessionId, ids);
+		}
+		ids.add(eventId);
+		current.put(key);
+		currentCount++;
+		return true;
+	}
+
+	public synchronized void writeTo(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(FORMAT_VERSION);
+		data.writeLong(currentStartedMillis);
+		data.writeInt(currentCount);
+		current.writeTo(data);
+		previous.writeTo(data);
+		data.flush();
+	}
+
+	public synchronized void readFrom(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		int version = data.readInt();
+		if (version != FORMAT_VERSION) {
+			throw new IOException("Unsupported dedup index format version: " + version);
+		}
+		currentStartedMillis = data.readLong();
+		currentCount = data.readInt();
+		current = BloomFilter.readFrom(data, KEY_FUNNEL);
+		previous = BloomFilter.readFrom(data, KEY_FUNNEL);
+		recent.invalidateAll();
+		rotateIfNeeded();
+	}
+
+	private void rotateIfNeeded() {
+		long now = clock.getAsLong();
+		if (now - currentStartedMillis >= 2 * generationMillis) {
+			previous = newFilter();
+			current = newFilter();
+			currentStartedMillis = now;
+			currentCount = 0;
+		} else if (now - currentStartedMillis >= generationMillis || currentCount >= expectedPerGeneration) {
+			previous = current;
+			current = newFilter();
+			currentStartedMillis = now;
+			currentCount = 0;
+		}
+	}
+
+	private BloomFilter<long[]> newFilter() {
+		return BloomFilter.create(KEY_FUNNEL, expectedPerGeneration, fpp);
+	}
+
+	private static class RecentIds {
+		private final long[] ids;
+		private long added;
+
+		RecentIds(int capacity) {
+			ids = new long[capacity];
+		}
+
+		boolean contains(long id) {
+			for (int i = 0; i < Math.min(added, ids.length); i++) {
+				if (ids[i] == id) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		void add(long id) {
+			ids[(int) (added++ % ids.length)] = id;
+		}
+
+		boolean isOverflown() {
+			return added > ids.length;
+		}
+	}
+}
@@ -0,0 +1,11 @@
+package brotherdetjr.pauline.core.eventlog;
+
+import brotherdetjr.pauline.events.Event;
+
+public interface EventCodec<E extends Event> {
+
+	byte[] encode(E event);
+
+	E decode(byte[] bytes);
+
+}
@@ -0,0 +1,271 @@
+package brotherdetjr.pauline.core.eventlog;
+
+import brotherdetjr.pauline.events.Event;
+import brotherdetjr.pauline.events.EventSource;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.SneakyThrows;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+import static brotherdetjr.pauline.core.eventlog.Segment.HEADER_BYTES;
+import static brotherdetjr.pauline.core.eventlog.Segment.SUFFIX;
+import static brotherdetjr.utils.Utils.propagateIfError;
+import static com.google.common.base.Throwables.getStackTraceAsString;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.util.stream.Collectors.toList;
+
+public class EventLog<E extends Event> implements EventSource<E>, Closeable {
+	public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+	public static final long DEFAULT_RETENTION_MILLIS = 24 * 60 * 60 * 1000L;
+	public static final int DEFAULT_MAX_IN_FLIGHT = 10_000;
+
+	private static final Logger log = LoggerFactory.getLogger(EventLog.class);
+	private static final String OFFSET_FILE = "consumer.offset";
+	private static final int BATCH_SIZE = 256;
+
+	private final Path dir;
+	private final EventCodec<E> codec;
+	private final int segmentBytes;
+	private final long retentionMillis;
+	private final int maxInFlight;
+	private final LongSupplier clock;
+	private final List<Segment> segments = new ArrayList<>();
+	private final MappedByteBuffer offsetBuffer;
+	private final Map<E, Long> inFlight = new IdentityHashMap<>();
+	private final TreeSet<Long> pending = new TreeSet<>();
+	private final List<Consumer<E>> handlers = new CopyOnWriteArrayList<>();
+	private Segment active;
+	private long endOffset;
+	private long committedOffset;
+	private Segment readSegment;
+	private int readPosition;
+	private long readOffset;
+	private Thread dispatcher;
+	private volatile boolean closed;
+
+	public EventLog(Path dir,
+					EventCodec<E> codec,
+					int segmentBytes,
+					long retentionMillis,
+					int maxInFlight,
+					LongSupplier clock) throws IOException {
+		this.dir = dir;
+		this.codec = codec;
+		this.segmentBytes = segmentBytes;
+		this.retentionMillis = retentionMillis;
+		this.maxInFlight = maxInFlight;
+		this.clock = clock;
+		Files.createDirectories(dir);
+		try (Stream<Path> files = Files.list(dir)) {
+			for (Path path : files.filter(p -> p.toString().endsWith(SUFFIX)).sorted().collect(toList())) {
+				segments.add(Segment.open(path, segmentBytes));
+			}
+		}
+		if (segments.isEmpty()) {
+			segments.add(Segment.create(dir, 0, segmentBytes));
+		}
+		active = segments.get(segments.size() - 1);
+		endOffset = active.getBaseOffset() + active.getCount();
+		try (RandomAccessFile file = new RandomAccessFile(dir.resolve(OFFSET_FILE).toFile(), "rw");
+			 FileChannel channel = file.getChannel()) {
+			offsetBuffer = channel.map(READ_WRITE, 0, Long.BYTES);
+		}
+		committedOffset = Math.max(offsetBuffer.getLong(0), segments.get(0).getBaseOffset());
+		seek(Math.min(committedOffset, endOffset));
+		log.debug("Opened event log {}: committed offset {}, end offset {}", dir, committedOffset, endOffset);
+	}
+
+	public EventLog(Path dir, EventCodec<E> codec, int segmentBytes, long retentionMillis, LongSupplier clock)
+		throws IOException {
+		this(dir, codec, segmentBytes, retentionMillis, DEFAULT_MAX_IN_FLIGHT, clock);
+	}
+
+	public EventLog(Path dir, EventCodec<E> codec) throws IOException {
+		this(dir, codec, DEFAULT_SEGMENT_BYTES, DEFAULT_RETENTION_MILLIS, System::currentTimeMillis);
+	}
+
+	public void ingest(EventSource<E> upstream) {
+		upstream.onEvent(this::append);
+	}
+
+	@SneakyThrows(IOException.class)
+	public synchronized long append(E event) {
+		byte[] payload = codec.encode(event);
+		if (payload.length == 0 || payload.length > segmentBytes - HEADER_BYTES) {
+			throw new IllegalArgumentException(
+				"Event encoding of " + payload.length + " bytes does not fit segment of " + segmentBytes + " bytes"
+			);
+		}
+		if (!active.append(payload)) {
+			active.roll(clock.getAsLong());
+			active = Segment.create(dir, endOffset, segmentBytes);
+			segments.add(active);
+			active.append(payload);
+			deleteExpiredSegments();
+		}
+		notifyAll();
+		return endOffset++;
+	}
+
+	@Override
+	public synchronized void onEvent(Consumer<E> handler) {
+		handlers.add(handler);
+		if (dispatcher == null) {
+			dispatcher = new ThreadFactoryBuilder()
+				.setNameFormat("pauline-event-log-%d")
+				.setDaemon(true)
+				.build()
+				.newThread(this::dispatch);
+			dispatcher.start();
+		}
+	}
+
+	public synchronized void commit(E event) {
+		Long offset = inFlight.remove(event);
+		if (offset != null) {
+			pending.remove(offset);
+			advanceCommittedOffset();
+			notifyAll();
+		}
+	}
+
+	public synchronized long getCommittedOffset() {
+		return committedOffset;
+	}
+
+	public synchronized long getEndOffset() {
+		return endOffset;
+	}
+
+	public synchronized int getInFlightCount() {
+		return pending.size();
+	}
+
+	public synchronized int getSegmentCount() {
+		return segments.size();
+	}
+
+	@Override
+	public void close() {
+		Thread thread;
+		synchronized (this) {
+			closed = true;
+			thread = dispatcher;
+			notifyAll();
+		}
+		if (thread != null) {
+			thread.interrupt();
+		}
+		synchronized (this) {
+			segments.forEach(Segment::force);
+			offsetBuffer.force();
+		}
+	}
+
+	private void dispatch() {
+		while (!closed) {
+			List<E> batch;
+			try {
+				batch = nextBatch();
+			} catch (InterruptedException ex) {
+				return;
+			}
+			for (E event : batch) {
+				try {
+					handlers.forEach(handler -> handler.accept(event));
+				} catch (Throwable ex) {
+					log.error("Failed to dispatch event {}: {}", event, getStackTraceAsString(ex));
+					commit(event);
+					propagateIfError(ex);
+				}
+			}
+		}
+	}
+
+	private synchronized List<E> nextBatch() throws InterruptedException {
+		while ((readOffset == endOffset || pending.size() >= maxInFlight) && !closed) {
+			wait();
+		}
+		List<E> batch = new ArrayList<>();
+		while (readOffset < endOffset && batch.size() < BATCH_SIZE && pending.size() < maxInFlight) {
+			if (readPosition >= readSegment.getWritePosition()) {
+				readSegment = segmentAt(readOffset);
+				readPosition = 0;
+				continue;
+			}
+			byte[] payload = readSegment.read(readPosition);
+			readPosition += HEADER_BYTES + payload.length;
+			long offset = readOffset++;
+			try {
+				E event = codec.decode(payload);
+				inFlight.put(event, offset);
+				pending.add(offset);
+				batch.add(event);
+			} catch (Throwable ex) {
+				log.error("Failed to decode event at offset {} of log {}: {}", offset, dir, getStackTraceAsString(ex));
+				propagateIfError(ex);
+			}
+		}
+		advanceCommittedOffset();
+		return batch;
+	}
+
+	private void advanceCommittedOffset() {
+		long offset = pending.isEmpty() ? readOffset : pending.first();
+		if (offset > committedOffset) {
+			committedOffset = offset;
+			offsetBuffer.putLong(0, offset);
+			deleteExpiredSegments();
+		}
+	}
+
+	private void seek(long offset) {
+		readSegment = segmentAt(offset);
+		readPosition = readSegment.skip(0, (int) (offset - readSegment.getBaseOffset()));
+		readOffset = offset;
+	}
+
+	private Segment segmentAt(long offset) {
+		Segment found = segments.get(0);
+		for (Segment segment : segments) {
+			if (segment.getBaseOffset() <= offset) {
+				found = segment;
+			}
+		}
+		return found;
+	}
+
+	private void deleteExpiredSegments() {
+		long now = clock.getAsLong();
+		while (segments.size() > 1) {
+			Segment oldest = segments.get(0);
+			if (segments.get(1).getBaseOffset() > committedOffset || now - oldest.getRolledMillis() < retentionMillis) {
+				return;
+			}
+			segments.remove(0);
+			try {
+				Files.delete(oldest.getPath());
+				log.debug("Deleted event log segment {}", oldest.getPath());
+			} catch (IOException ex) {
+				log.error("Failed to delete event log segment {}: {}", oldest.getPath(), getStackTraceAsString(ex));
+			}
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package brotherdetjr.pauline.core.eventlog;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.zip.CRC32;
+
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+
+class Segment {
+	static final int HEADER_BYTES = 8;
+	static final String SUFFIX = ".log";
+
+	@Getter
+	private final Path path;
+	@Getter
+	private final long baseOffset;
+	private final MappedByteBuffer buffer;
+	@Getter
+	private int writePosition;
+	@Getter
+	private int count;
+	@Getter
+	private long rolledMillis;
+
+	private Segment(Path path, long baseOffset, int size) throws IOException {
+		this.path = path;
+		this.baseOffset = baseOffset;
+		try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw");
+			 FileChannel channel = file.getChannel()) {
+			buffer = channel.map(READ_WRITE, 0, size);
+		}
+	}
+
+	static Segment create(Path dir, long baseOffset, int size) throws IOException {
+		return new Segment(dir.resolve(String.format("%020d", baseOffset) + SUFFIX), baseOffset, size);
+	}
+
+	static Segment open(Path path, int size) throws IOException {
+		String name = path.getFileName().toString();
+		Segment segment = new Segment(path, Long.parseLong(name.substring(0, name.length() - SUFFIX.length())), size);
+		segment.recover();
+		segment.rolledMillis = Files.getLastModifiedTime(path).toMillis();
+		return segment;
+	}
+
+	boolean append(byte[] payload) {
+		if (writePosition + HEADER_BYTES + payload.length > buffer.capacity()) {
+			return false;
+		}
+		buffer.position(writePosition + HEADER_BYTES);
+		buffer.put(payload);
+		buffer.putInt(writePosition + 4, crc(payload));
+		buffer.putInt(writePosition, payload.length);
+		writePosition += HEADER_BYTES + payload.length;
+		count++;
+		return true;
+	}
+
+	byte[] read(int position) {
+		byte[] payload = new byte[buffer.getInt(position)];
+		buffer.position(position + HEADER_BYTES);
+		buffer.get(payload);
+		return payload;
+	}
+
+	int skip(int position, int records) {
+		for (int i = 0; i < records; i++) {
+			position += HEADER_BYTES + buffer.getInt(position);
+		}
+		return position;
+	}
+
+	void roll(long nowMillis) throws IOException {
+		buffer.force();
+		rolledMillis = nowMillis;
+		Files.setLastModifiedTime(path, FileTime.fromMillis(nowMillis));
+	}
+
+	void force() {
+		buffer.force();
+	}
+
+	private void recover() {
+		int position = 0;
+		while (position + HEADER_BYTES <= buffer.capacity()) {
+			int length = buffer.getInt(position);
+			if (length <= 0 || position + HEADER_BYTES + length > buffer.capacity()) {
+				break;
+			}
+			byte[] payload = read(position);
+			if (buffer.getInt(position + 4) != crc(payload)) {
+				break;
+			}
+			position += HEADER_BYTES + length;
+			count++;
+		}
+		writePosition = position;
+		if (position + HEADER_BYTES <= buffer.capacity() && buffer.getInt(position) != 0) {
+			for (int i = position; i < buffer.capacity(); i++) {
+				buffer.put(i, (byte) 0);
+			}
+		}
+	}
+
+	private static int crc(byte[] payload) {
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		return (int) crc.getValue();
+	}
+}
@@ -0,0 +1,14 @@
+package brotherdetjr.pauline.core.timer;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@RequiredArgsConstructor
+@ToString
+public class Timer<T> {
+	private final long id;
+	private final long deadlineMillis;
+	private final T payload;
+}
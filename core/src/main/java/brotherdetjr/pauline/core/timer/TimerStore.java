@@ -0,0 +1,33 @@
+package brotherdetjr.pauline.core.timer;
+
+import java.util.Collection;
+
+import static java.util.Collections.emptyList;
+
+public interface TimerStore<T> {
+
+	void save(Timer<T> timer);
+
+	void remove(long id);
+
+	Collection<Timer<T>> load();
+
+	static <T> TimerStore<T> none() {
+		return new TimerStore<T>() {
+			@Override
+			public void save(Timer<T> timer) {
+				// not persisted
+			}
+
+			@Override
+			public void remove(long id) {
+				// not persisted
+			}
+
+			@Override
+			public Collection<Timer<T>> load() {
+				return emptyList();
+			}
+		};
+	}
+}
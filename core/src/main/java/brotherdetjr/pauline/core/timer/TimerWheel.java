@@ -0,0 +1,98 @@
+package brotherdetjr.pauline.core.timer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static com.google.common.collect.Maps.newHashMap;
+
+public class TimerWheel<T> {
+	private static final int BITS = 8;
+	private static final int SLOTS = 1 << BITS;
+	private static final int MASK = SLOTS - 1;
+	private static final int LEVELS = 4;
+	private static final long MAX_DELTA = (1L << (BITS * LEVELS)) - 1;
+
+	private final long originMillis;
+	private final long tickMillis;
+	@SuppressWarnings("unchecked")
+	private final List<Timer<T>>[][] wheels = new List[LEVELS][SLOTS];
+	private final Map<Long, Timer<T>> pending = newHashMap();
+	private long currentTick;
+
+	public TimerWheel(long originMillis, long tickMillis) {
+		this.originMillis = originMillis;
+		this.tickMillis = tickMillis;
+	}
+
+	public void add(Timer<T> timer) {
+		pending.put(timer.getId(), timer);
+		place(timer, currentTick + 1);
+	}
+
+	public boolean cancel(long id) {
+		return pending.remove(id) != null;
+	}
+
+	public int size() {
+		return pending.size();
+	}
+
+	public void advance(long nowMillis, Consumer<Timer<T>> expired) {
+		long targetTick = (nowMillis - originMillis) / tickMillis;
+		while (currentTick < targetTick) {
+			currentTick++;
+			for (int level = 1; level < LEVELS && index(currentTick, level - 1) == 0; level++) {
+				List<Timer<T>> slot = take(level, index(currentTick, level));
+				if (slot != null) {
+					slot.forEach(this::placeIfPending);
+				}
+			}
+			List<Timer<T>> due = take(0, index(currentTick, 0));
+			if (due != null) {
+				for (Timer<T> timer : due) {
+					if (pending.remove(timer.getId()) != null) {
+						expired.accept(timer);
+					}
+				}
+			}
+		}
+	}
+
+	private void placeIfPending(Timer<T> timer) {
+		if (pending.get(timer.getId()) == timer) {
+			place(timer, currentTick);
+		}
+	}
+
+	private void place(Timer<T> timer, long earliestTick) {
+		long deadlineTick = Math.max(earliestTick, ceilDiv(timer.getDeadlineMillis() - originMillis, tickMillis));
+		long delta = Math.min(deadlineTick - currentTick, MAX_DELTA);
+		int level = 0;
+		while (delta >= 1L << (BITS * (level + 1))) {
+			level++;
+		}
+		int index = index(currentTick + delta, level);
+		List<Timer<T>> slot = wheels[level][index];
+		if (slot == null) {
+			slot = new ArrayList<>();
+			wheels[level][index] = slot;
+		}
+		slot.add(timer);
+	}
+
+	private List<Timer<T>> take(int level, int index) {
+		List<Timer<T>> slot = wheels[level][index];
+		wheels[level][index] = null;
+		return slot;
+	}
+
+	private static int index(long tick, int level) {
+		return (int) (tick >>> (BITS * level)) & MASK;
+	}
+
+	private static long ceilDiv(long x, long y) {
+		return -Math.floorDiv(-x, y);
+	}
+}
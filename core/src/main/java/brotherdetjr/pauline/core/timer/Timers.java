@@ -0,0 +1,118 @@
+package brotherdetjr.pauline.core.timer;
+
+import brotherdetjr.pauline.events.Event;
+import brotherdetjr.pauline.events.EventSource;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import static brotherdetjr.utils.Utils.propagateIfError;
+import static com.google.common.base.Throwables.getStackTraceAsString;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+public class Timers<E extends Event> implements EventSource<E>, Closeable {
+	private static final Logger log = LoggerFactory.getLogger(Timers.class);
+
+	@Getter
+	private final long tickMillis;
+	private final TimerStore<E> store;
+	private final LongSupplier clock;
+	private final TimerWheel<E> wheel;
+	private final AtomicLong ids = new AtomicLong();
+	private final List<Consumer<E>> handlers = new CopyOnWriteArrayList<>();
+	private volatile ScheduledExecutorService ticker;
+
+	public Timers(long tickMillis, TimerStore<E> store, LongSupplier clock) {
+		this.tickMillis = tickMillis;
+		this.store = store;
+		this.clock = clock;
+		wheel = new TimerWheel<>(clock.getAsLong(), tickMillis);
+		for (Timer<E> timer : store.load()) {
+			wheel.add(timer);
+			ids.accumulateAndGet(timer.getId(), Math::max);
+		}
+	}
+
+	public Timers(long tickMillis, TimerStore<E> store) {
+		this(tickMillis, store, System::currentTimeMillis);
+	}
+
+	public Timers(long tickMillis) {
+		this(tickMillis, TimerStore.none());
+	}
+
+	public Timers<E> start() {
+		ticker = newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder().setNameFormat("pauline-timers-%d").setDaemon(true).build()
+		);
+		ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, MILLISECONDS);
+		return this;
+	}
+
+	public long schedule(E event, long delay, TimeUnit unit) {
+		Timer<E> timer = new Timer<>(ids.incrementAndGet(), clock.getAsLong() + unit.toMillis(delay), event);
+		store.save(timer);
+		synchronized (wheel) {
+			wheel.add(timer);
+		}
+		return timer.getId();
+	}
+
+	public boolean cancel(long id) {
+		boolean cancelled;
+		synchronized (wheel) {
+			cancelled = wheel.cancel(id);
+		}
+		if (cancelled) {
+			store.remove(id);
+		}
+		return cancelled;
+	}
+
+	public int size() {
+		synchronized (wheel) {
+			return wheel.size();
+		}
+	}
+
+	@Override
+	public void onEvent(Consumer<E> handler) {
+		handlers.add(handler);
+	}
+
+	public void advance() {
+		List<Timer<E>> expired = new ArrayList<>();
+		synchronized (wheel) {
+			wheel.advance(clock.getAsLong(), expired::add);
+		}
+		for (Timer<E> timer : expired) {
+			try {
+				store.remove(timer.getId());
+				log.debug("Firing timer {}", timer);
+				handlers.forEach(handler -> handler.accept(timer.getPayload()));
+			} catch (Throwable ex) {
+				log.error("Failed to fire timer {}: {}", timer, getStackTraceAsString(ex));
+				propagateIfError(ex);
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		if (ticker != null) {
+			ticker.shutdown();
+		}
+	}
+}
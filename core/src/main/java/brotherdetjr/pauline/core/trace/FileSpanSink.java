@@ -0,0 +1,64 @@
+package brotherdetjr.pauline.core.trace;
+
+import lombok.SneakyThrows;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.newBufferedWriter;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+public class FileSpanSink implements SpanSink, Closeable {
+	public static final int DEFAULT_FLUSH_EVERY = 100;
+	public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+
+	private final BufferedWriter writer;
+	private final int flushEvery;
+	private final long flushIntervalNanos;
+	private int unflushed;
+	private long lastFlushNanos = System.nanoTime();
+
+	@SneakyThrows(IOException.class)
+	public FileSpanSink(Path path, int flushEvery, long flushIntervalMillis) {
+		writer = newBufferedWriter(path, UTF_8, CREATE, APPEND);
+		this.flushEvery = flushEvery;
+		flushIntervalNanos = MILLISECONDS.toNanos(flushIntervalMillis);
+	}
+
+	public FileSpanSink(Path path) {
+		this(path, DEFAULT_FLUSH_EVERY, DEFAULT_FLUSH_INTERVAL_MILLIS);
+	}
+
+	@Override
+	@SneakyThrows(IOException.class)
+	public synchronized void export(SpanData span) {
+		writer
+			.append(Long.toString(span.getTraceId())).append('\t')
+			.append(Long.toString(span.getSessionId())).append('\t')
+			.append(span.getName()).append('\t')
+			.append(Long.toString(span.getTraceStartMillis())).append('\t')
+			.append(Long.toString(span.getOffsetNanos())).append('\t')
+			.append(Long.toString(span.getDurationNanos()));
+		writer.newLine();
+		if (++unflushed >= flushEvery || System.nanoTime() - lastFlushNanos >= flushIntervalNanos) {
+			flush();
+		}
+	}
+
+	@SneakyThrows(IOException.class)
+	public synchronized void flush() {
+		writer.flush();
+		unflushed = 0;
+		lastFlushNanos = System.nanoTime();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		writer.close();
+	}
+}
@@ -0,0 +1,23 @@
+package brotherdetjr.pauline.core.trace;
+
+import com.google.common.collect.EvictingQueue;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+public class InMemorySpanSink implements SpanSink {
+	private final EvictingQueue<SpanData> spans;
+
+	public InMemorySpanSink(int capacity) {
+		spans = EvictingQueue.create(capacity);
+	}
+
+	@Override
+	public synchronized void export(SpanData span) {
+		spans.add(span);
+	}
+
+	public synchronized List<SpanData> getSpans() {
+		return ImmutableList.copyOf(spans);
+	}
+}
@@ -0,0 +1,9 @@
+package brotherdetjr.pauline.core.trace;
+
+@FunctionalInterface
+public interface Span {
+	Span NOOP = () -> {
+	};
+
+	void end();
+}
@@ -0,0 +1,17 @@
+package brotherdetjr.pauline.core.trace;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@RequiredArgsConstructor
+@ToString
+public class SpanData {
+	private final long traceId;
+	private final long sessionId;
+	private final String name;
+	private final long traceStartMillis;
+	private final long offsetNanos;
+	private final long durationNanos;
+}
@@ -0,0 +1,6 @@
+package brotherdetjr.pauline.core.trace;
+
+@FunctionalInterface
+public interface SpanSink {
+	void export(SpanData span);
+}
@@ -0,0 +1,69 @@
+package brotherdetjr.pauline.core.trace;
+
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static brotherdetjr.utils.Utils.propagateIfError;
+
+public class Trace {
+	public static final Trace NOOP = new Trace(0L, 0L, null);
+
+	private static final Logger log = LoggerFactory.getLogger(Trace.class);
+
+	private static final ThreadLocal<Trace> current = new ThreadLocal<>();
+
+	@Getter
+	private final long traceId;
+	@Getter
+	private final long sessionId;
+	private final SpanSink sink;
+	private final long startMillis = System.currentTimeMillis();
+	private final long startNanos = System.nanoTime();
+
+	Trace(long traceId, long sessionId, SpanSink sink) {
+		this.traceId = traceId;
+		this.sessionId = sessionId;
+		this.sink = sink;
+	}
+
+	public static Trace current() {
+		Trace trace = current.get();
+		return trace != null ? trace : NOOP;
+	}
+
+	public boolean isSampled() {
+		return sink != null;
+	}
+
+	public Span span(String name) {
+		if (!isSampled()) {
+			return Span.NOOP;
+		}
+		long start = System.nanoTime();
+		return () -> {
+			try {
+				sink.export(
+					new SpanData(traceId, sessionId, name, startMillis, start - startNanos, System.nanoTime() - start)
+				);
+			} catch (Throwable ex) {
+				log.error("Failed to export span {} of trace {}: {}", name, traceId, ex.toString());
+				propagateIfError(ex);
+			}
+		};
+	}
+
+	public void runAsCurrent(Runnable runnable) {
+		if (!isSampled()) {
+			runnable.run();
+			return;
+		}
+		Trace previous = current.get();
+		current.set(this);
+		try {
+			runnable.run();
+		} finally {
+			current.set(previous);
+		}
+	}
+}
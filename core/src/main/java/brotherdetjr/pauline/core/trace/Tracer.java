@@ -0,0 +1,26 @@
+package brotherdetjr.pauline.core.trace;
+
+import brotherdetjr.pauline.events.Event;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class Tracer {
+	public static final Tracer NOOP = new Tracer(0.0, null);
+
+	private final double sampleRate;
+	private final SpanSink sink;
+	private final AtomicLong traceIds = new AtomicLong();
+
+	public Tracer(double sampleRate, SpanSink sink) {
+		this.sampleRate = sampleRate;
+		this.sink = sink;
+	}
+
+	public Trace start(Event event) {
+		if (sampleRate <= 0.0 || sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+			return Trace.NOOP;
+		}
+		return new Trace(traceIds.incrementAndGet(), event.getSessionId(), sink);
+	}
+}
@@ -0,0 +1,122 @@
+package brotherdetjr.pauline.core
+
+import brotherdetjr.pauline.test.EventSourceImpl
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentLinkedQueue
+
+import static com.google.common.collect.Maps.newConcurrentMap
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor
+import static java.util.concurrent.CompletableFuture.completedFuture
+import static java.util.concurrent.Executors.newSingleThreadExecutor
+
+class BroadcastTest extends Specification {
+
+	static final SESSIONS = 1000
+
+	def sessions = newConcurrentMap()
+	def flow = new Flow.Builder()
+		.eventSource(new EventSourceImpl())
+		.sessions(sessions)
+		.failView({ ctx -> })
+		.rendererFactory({ null })
+		.initial({ completedFuture 0L })
+		.build()
+
+	def setup() {
+		(1..SESSIONS).each { sessions[(long) it] = new Session((long) it, false) }
+		sessions[0L] = new Session(null, true)
+	}
+
+	def 'sends to sessions matching state predicate in batches with checkpoints'() {
+		given:
+		def received = []
+		def checkpoints = []
+		def broadcast = flow
+			.broadcast({ it % 2 == 0 }, { long id, state -> received << id; completedFuture null })
+			.batchSize(300)
+			.checkpoint({ long id -> checkpoints << id })
+		when:
+		broadcast.start(directExecutor()).join()
+		then:
+		received == (2L..SESSIONS).step(2)
+		checkpoints == [299L, 599L, 899L, 1000L]
+		broadcast.total == SESSIONS + 1
+		broadcast.scanned == SESSIONS + 1
+		broadcast.matched == SESSIONS / 2
+		broadcast.sent == SESSIONS / 2
+		broadcast.failed == 0
+		broadcast.done
+	}
+
+	def 'broadcast resumes after checkpoint'() {
+		given:
+		def received = []
+		when:
+		flow
+			.broadcast({ true }, { long id, state -> received << id; completedFuture null })
+			.resumeAfter(899L)
+			.start(directExecutor())
+			.join()
+		then:
+		received == (900L..SESSIONS).toList()
+	}
+
+	def 'failed sends are counted and do not stop broadcast'() {
+		given:
+		def broadcast = flow.broadcast({ it <= 10 }, { long id, state ->
+			if (id == 3L) {
+				throw new IllegalStateException()
+			}
+			def future = new CompletableFuture()
+			id == 5L ? future.completeExceptionally(new IllegalStateException()) : future.complete(null)
+			future
+		})
+		when:
+		broadcast.start(directExecutor()).join()
+		then:
+		broadcast.matched == 10
+		broadcast.sent == 8
+		broadcast.failed == 2
+	}
+
+	def 'sends in flight are limited independently of batch size'() {
+		given:
+		def pending = new ConcurrentLinkedQueue<CompletableFuture>()
+		def maxPending = 0
+		def broadcast = flow
+			.broadcast({ true }, { long id, state ->
+				def future = new CompletableFuture()
+				pending << future
+				maxPending = Math.max(maxPending, pending.size())
+				future
+			})
+			.batchSize(500)
+			.maxInFlight(10)
+		def completer = Thread.start {
+			while (!broadcast.done) {
+				pending.poll()?.complete(null)
+			}
+		}
+		when:
+		broadcast.start(newSingleThreadExecutor()).join()
+		completer.join()
+		then:
+		broadcast.sent == SESSIONS
+		maxPending <= 10
+	}
+
+	def 'cancelled broadcast stops after current batch'() {
+		given:
+		def broadcast
+		broadcast = flow
+			.broadcast({ true }, { long id, state -> broadcast.cancel(); completedFuture null })
+			.batchSize(100)
+		when:
+		broadcast.start(directExecutor()).join()
+		then:
+		broadcast.sent == 99
+		broadcast.lastCheckpoint == 99L
+	}
+}
@@ -0,0 +1,109 @@
+package brotherdetjr.pauline.core
+
+import brotherdetjr.pauline.events.Event
+import brotherdetjr.pauline.test.EventSourceImpl
+import spock.lang.Specification
+import spock.lang.Timeout
+import spock.util.concurrent.BlockingVariable
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.RejectedExecutionException
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor
+import static java.util.concurrent.CompletableFuture.completedFuture
+import static java.util.concurrent.Executors.newFixedThreadPool
+
+class BulkheadTest extends Specification {
+
+	def 'concurrency and queue are bounded'() {
+		given:
+		def bulkhead = new Bulkhead('api', directExecutor(), 1, 1)
+		def first = new CompletableFuture()
+		def secondStarted = false
+		when:
+		def r1 = bulkhead.submit { first }
+		def r2 = bulkhead.submit { secondStarted = true; completedFuture 2 }
+		def r3 = bulkhead.submit { completedFuture 3 }
+		then:
+		!secondStarted
+		bulkhead.active == 1
+		bulkhead.queued == 1
+		bulkhead.peakQueued == 1
+		bulkhead.accepted == 2
+		bulkhead.rejected == 1
+		r3.isCompletedExceptionally()
+		when:
+		r3.join()
+		then:
+		def ex = thrown(Exception)
+		ex.cause instanceof RejectedExecutionException
+		when:
+		first.complete 1
+		then:
+		secondStarted
+		r1.join() == 1
+		r2.join() == 2
+		bulkhead.active == 0
+		bulkhead.queued == 0
+	}
+
+	def 'failure of a task frees its slot'() {
+		given:
+		def bulkhead = new Bulkhead('api', directExecutor(), 1, 0)
+		when:
+		def failed = bulkhead.submit { throw new IllegalStateException() }
+		def next = bulkhead.submit { completedFuture 'ok' }
+		then:
+		failed.isCompletedExceptionally()
+		next.join() == 'ok'
+		bulkhead.rejected == 0
+	}
+
+	@Timeout(5)
+	def 'slow handler group does not stall other handlers'() {
+		given:
+		def eventSource = new EventSourceImpl()
+		def rendered = new CopyOnWriteArrayList()
+		def release = new CountDownLatch(1)
+		def slowStarted = new BlockingVariable<Boolean>(2)
+		new Flow.Builder()
+			.eventSource(eventSource)
+			.executor(newFixedThreadPool(1))
+			.failView({ ctx -> })
+			.rendererFactory({ null })
+			.initial({ Event e -> completedFuture 'ready' })
+			.handle(SlowEvent, Bulkhead.fixed('slow', 1, 10)).by({ SlowEvent e, String from ->
+				slowStarted.set true
+				release.await()
+				completedFuture 'slow'
+			})
+			.handle(FastEvent).by({ FastEvent e, String from -> completedFuture 'fast' })
+			.render(String).as({ View.Context<String, Object, Event> ctx -> rendered << ctx.state })
+			.build()
+		def conditions = new PollingConditions(timeout: 2)
+		when:
+		eventSource.fire new SlowEvent(sessionId: 1L)
+		eventSource.fire new FastEvent(sessionId: 2L)
+		conditions.eventually { assert rendered.size() == 2 }
+		eventSource.fire new SlowEvent(sessionId: 1L)
+		slowStarted.get()
+		eventSource.fire new FastEvent(sessionId: 2L)
+		then:
+		conditions.eventually { assert rendered == ['ready', 'ready', 'fast'] }
+		when:
+		release.countDown()
+		then:
+		conditions.eventually { assert rendered == ['ready', 'ready', 'fast', 'slow'] }
+	}
+
+	static class SlowEvent implements Event {
+		long sessionId
+	}
+
+	static class FastEvent implements Event {
+		long sessionId
+	}
+}
@@ -0,0 +1,68 @@
+package brotherdetjr.pauline.core
+
+import brotherdetjr.pauline.events.Event
+import brotherdetjr.pauline.test.EventSourceImpl
+import brotherdetjr.pauline.test.SimulationJournal
+import brotherdetjr.pauline.test.VirtualScheduler
+import groovy.util.logging.Slf4j
+import org.slf4j.helpers.NOPLogger
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import static brotherdetjr.pauline.test.SimulationJournal.Outcome.COMPLETED
+import static brotherdetjr.pauline.test.SimulationJournal.Outcome.REJECTED
+import static com.google.common.collect.Maps.newConcurrentMap
+
+@Slf4j
+class FlowSimulationTest extends Specification {
+
+	static final SESSIONS = 2000, EVENTS = 20000, FIRE_WINDOW = 100_000, MAX_TRANSIT_DELAY = 50
+
+	@Unroll
+	def 'no lost events, stuck sessions or reordering. Seed: #seed, failure rate: #failureRate'() {
+		given:
+		def scheduler = new VirtualScheduler(seed)
+		def journal = new SimulationJournal(scheduler)
+		def sessions = newConcurrentMap()
+		def eventSource = new EventSourceImpl()
+		new Flow.Builder()
+			.eventSource(eventSource)
+			.executor(scheduler)
+			.sessions(sessions)
+			.failView({ View.Context<Throwable, Object, SimEvent> ctx -> journal.rejected ctx.event.id })
+			.rendererFactory({ null })
+			.initial({ SimEvent e -> transit(scheduler, failureRate, 0L) })
+			.handle(SimEvent).by({ SimEvent e, Long from -> transit(scheduler, failureRate, from + 1) })
+			.render(Long).as({ View.Context<Long, Object, SimEvent> ctx -> journal.completed ctx.event.id })
+			.log(NOPLogger.NOP_LOGGER)
+			.build()
+		EVENTS.times {
+			long sessionId = scheduler.random().nextInt(SESSIONS)
+			scheduler.schedule({
+				eventSource.fire new SimEvent(sessionId: sessionId, id: journal.fired(sessionId))
+			}, scheduler.randomDelay(FIRE_WINDOW))
+		}
+		when:
+		scheduler.runUntilIdle()
+		log.info 'Seed {}: {} completed, {} rejected, throughput {} per tick, p50 latency {}, p99 latency {}',
+			seed, journal.count(COMPLETED), journal.count(REJECTED), journal.throughput(),
+			journal.latencyPercentile(0.5), journal.latencyPercentile(0.99)
+		then:
+		journal.violations(sessions.keySet(), { long id -> sessions[id].busy }) == []
+		journal.count(COMPLETED) + journal.count(REJECTED) == EVENTS
+		where:
+		[seed, failureRate] << [[1L, 2L, 3L], [0.0d, 0.1d]].combinations()
+	}
+
+	private static transit(VirtualScheduler scheduler, double failureRate, long to) {
+		def delay = scheduler.randomDelay(MAX_TRANSIT_DELAY)
+		scheduler.random().nextDouble() < failureRate ?
+			scheduler.fail(new IllegalStateException('Simulated failure'), delay) :
+			scheduler.complete(to, delay)
+	}
+
+	static class SimEvent implements Event {
+		long sessionId
+		int id
+	}
+}
@@ -149,6 +149,66 @@ class FlowTest extends Specification {
 		executorName << EXECUTORS.keySet()
 	}
 
+	def 'sync controllers transit and render with a single executor hop'() {
+		given:
+		def eventSource = new EventSourceImpl()
+		def renderer = Mock(BiConsumer)
+		def hops = 0
+		new Flow.Builder()
+			.eventSource(eventSource)
+			.executor({ Runnable r -> hops++; r.run() } as Executor)
+			.failView({ throw new Exception() })
+			.rendererFactory({ renderer })
+			.initialSync({ 29L })
+			.handle(EventImpl).sync({ EventImpl e, long from -> from + e.value })
+			.render(Long).as({ View.Context<Long, BiConsumer<String, Long>, EventImpl> ctx ->
+				ctx.renderer.accept ctx.event.sessionId + '->' + ctx.state, ctx.event.chatId
+			})
+			.build()
+		when:
+		eventSource.fire EventImpl.of(SESSION_1, CHAT_1, 100500)
+		eventSource.fire EventImpl.of(SESSION_1, CHAT_1, 4)
+		then:
+		hops == 2
+		1 * renderer.accept('2->29', CHAT_1)
+		1 * renderer.accept('2->33', CHAT_1)
+	}
+
+	def 'sync controller failure is rendered by failView and frees session'() {
+		given:
+		def eventSource = new EventSourceImpl()
+		def mockedLog = Mock(Logger)
+		def failView = Mock(View)
+		def renderer = Mock(BiConsumer)
+		new Flow.Builder()
+			.eventSource(eventSource)
+			.failView(failView)
+			.rendererFactory({ renderer })
+			.initialSync({ 0L })
+			.handle(EventImpl).sync({ EventImpl e, long from ->
+				if (e.value < 0) {
+					throw new IllegalArgumentException()
+				}
+				from + e.value
+			})
+			.render(Long).as({ View.Context<Long, BiConsumer<String, Long>, EventImpl> ctx ->
+				ctx.renderer.accept ctx.event.sessionId + '->' + ctx.state, ctx.event.chatId
+			})
+			.log(mockedLog)
+			.build()
+		when:
+		eventSource.fire EventImpl.of(SESSION_1, CHAT_1, 0)
+		eventSource.fire EventImpl.of(SESSION_1, CHAT_1, -1)
+		then:
+		1 * mockedLog.error('Failed to perform transition by event {}. Cause: {}', _ as EventImpl, _ as String)
+		1 * failView.render(_ as View.Context)
+		when:
+		eventSource.fire EventImpl.of(SESSION_1, CHAT_1, 5)
+		then:
+		1 * renderer.accept('2->5', CHAT_1)
+		0 * mockedLog.error(*_)
+	}
+
 	def 'event is logged before running in executor'() {
 		given:
 		def eventSource = new EventSourceImpl()
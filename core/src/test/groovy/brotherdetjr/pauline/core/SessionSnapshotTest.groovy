@@ -0,0 +1,110 @@
+package brotherdetjr.pauline.core
+
+import brotherdetjr.pauline.events.Event
+import brotherdetjr.pauline.test.EventSourceImpl
+import spock.lang.Specification
+
+import static java.util.stream.Collectors.counting
+import static java.util.stream.Collectors.groupingBy
+import static java.util.stream.Collectors.toMap
+
+class SessionSnapshotTest extends Specification {
+
+	def eventSource = new EventSourceImpl<TestEvent>()
+	def flow = new Flow.Builder()
+		.eventSource(eventSource)
+		.failView({ ctx -> })
+		.rendererFactory({ null })
+		.initialSync({ TestEvent e -> e.state })
+		.handle(TestEvent).sync({ TestEvent e, Object from -> e.state })
+		.render(Object).as({ ctx -> })
+		.build()
+
+	def 'snapshot sees states as of its opening'() {
+		given:
+		fire 1L, 'a'
+		fire 2L, 'b'
+		def snapshot = flow.snapshot()
+		when:
+		fire 1L, 'c'
+		fire 1L, 'd'
+		fire 3L, 'e'
+		then:
+		states(snapshot) == [1L: 'a', 2L: 'b']
+		states(flow.snapshot()) == [1L: 'd', 2L: 'b', 3L: 'e']
+		cleanup:
+		snapshot.close()
+	}
+
+	def 'overlapping snapshots keep their own views'() {
+		given:
+		fire 1L, 'a'
+		def first = flow.snapshot()
+		fire 1L, 'b'
+		def second = flow.snapshot()
+		fire 1L, 'c'
+		when:
+		first.close()
+		fire 1L, 'd'
+		then:
+		states(second) == [1L: 'b']
+		when:
+		second.close()
+		fire 1L, 'e'
+		then:
+		states(flow.snapshot()) == [1L: 'e']
+	}
+
+	def 'parallel scan counts sessions per state class'() {
+		given:
+		(1..10000).each { fire it, it % 4 == 0 ? 'text' : it }
+		def snapshot = flow.snapshot()
+		(1..10000).each { fire it, 'changed' }
+		when:
+		def counts = snapshot.parallelStream().collect(groupingBy({ it.state.class }, counting()))
+		then:
+		counts == [(String): 2500L, (Integer): 7500L]
+		cleanup:
+		snapshot.close()
+	}
+
+	def 'repeated scans of snapshot opened during concurrent writes agree'() {
+		given:
+		def epochs = new SessionSnapshot.Epochs()
+		def sessions = (0L..<100L).collectEntries { [(it): new Session(0L, false)] }
+		def stopped = false
+		def writers = (0..<4).collect { w ->
+			Thread.start {
+				for (long value = 1; !stopped; value++) {
+					sessions.each { id, session -> if (id % 4 == w) epochs.write(session, value) }
+				}
+			}
+		}
+		when:
+		def mismatches = (1..500).count {
+			def snapshot = epochs.open(sessions)
+			def first = states(snapshot)
+			Thread.yield()
+			def second = states(snapshot)
+			snapshot.close()
+			first != second
+		}
+		stopped = true
+		writers*.join()
+		then:
+		mismatches == 0
+	}
+
+	private void fire(long sessionId, Object state) {
+		eventSource.fire new TestEvent(sessionId: sessionId, state: state)
+	}
+
+	private static Map<Long, Object> states(SessionSnapshot snapshot) {
+		snapshot.stream().collect(toMap({ it.sessionId }, { it.state }))
+	}
+
+	static class TestEvent implements Event {
+		long sessionId
+		Object state
+	}
+}
@@ -0,0 +1,129 @@
+package brotherdetjr.pauline.core
+
+import brotherdetjr.pauline.events.Event
+import brotherdetjr.pauline.test.EventSourceImpl
+import com.google.common.base.Ticker
+import org.slf4j.Logger
+import spock.lang.Specification
+
+import java.util.concurrent.Executor
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor
+import static java.util.concurrent.TimeUnit.SECONDS
+
+class ThrottledFailViewTest extends Specification {
+
+	static final SESSION_1 = 2L, SESSION_2 = 22L, MAXIMUM_SIZE = 2L
+
+	def nanos = 0L
+	def ticker = { nanos } as Ticker
+	def delegate = Mock(View)
+	def log = Mock(Logger)
+	def view = new ThrottledFailView(delegate, directExecutor(), 10, SECONDS, MAXIMUM_SIZE, ticker, log)
+
+	def 'failure is rendered once per session per interval'() {
+		when:
+		view.render context(newException(), SESSION_1)
+		view.render context(newException(), SESSION_1)
+		view.render context(newException(), SESSION_2)
+		then:
+		2 * delegate.render(_ as View.Context)
+		when:
+		nanos += SECONDS.toNanos(11)
+		view.render context(newException(), SESSION_1)
+		then:
+		1 * delegate.render(_ as View.Context)
+	}
+
+	def 'identical stack traces are logged once per interval with repetition count'() {
+		given:
+		def ex = newException()
+		when:
+		3.times { view.render context(ex, SESSION_1) }
+		view.render context(new IllegalStateException(), SESSION_1)
+		then:
+		2 * log.error('Failure {}: {}', _ as Throwable, _ as String)
+		when:
+		nanos += SECONDS.toNanos(11)
+		view.render context(newException(), SESSION_2)
+		then:
+		1 * log.error('Failure {} repeated {} more time(s)', RuntimeException.name, 2)
+		1 * log.error('Failure {}: {}', _ as RuntimeException, _ as String)
+	}
+
+	def 'delegate exception is logged'() {
+		given:
+		delegate.render(_ as View.Context) >> { throw new IllegalArgumentException() }
+		when:
+		view.render context(newException(), SESSION_1)
+		then:
+		1 * log.error('Failed to render failure for event {}: {}', _ as Event, _ as String)
+	}
+
+	def 'only admitted renderings are enqueued'() {
+		given:
+		def executor = Mock(Executor)
+		def throttled = new ThrottledFailView(delegate, executor, 10, SECONDS, MAXIMUM_SIZE, ticker, log)
+		when:
+		100.times { throttled.render context(newException(), SESSION_1) }
+		then:
+		1 * executor.execute(_ as Runnable)
+	}
+
+	def 'repetition count is logged on clean up after failures stop'() {
+		given:
+		def ex = newException()
+		3.times { view.render context(ex, SESSION_1) }
+		when:
+		nanos += SECONDS.toNanos(11)
+		view.cleanUp()
+		then:
+		1 * log.error('Failure {} repeated {} more time(s)', RuntimeException.name, 2)
+	}
+
+	def 'pending repetition counts are logged on close'() {
+		given:
+		def ex = newException()
+		2.times { view.render context(ex, SESSION_1) }
+		when:
+		view.close()
+		then:
+		1 * log.error('Failure {} repeated {} more time(s)', RuntimeException.name, 1)
+	}
+
+	def 'throttling state is bounded in size'() {
+		when:
+		view.render context(newException(), SESSION_1)
+		view.render context(newException(), SESSION_2)
+		view.render context(newException(), SESSION_2 + 1)
+		view.render context(newException(), SESSION_1)
+		then:
+		4 * delegate.render(_ as View.Context)
+	}
+
+	def 'flow logs one-line causes when failure traces are disabled'() {
+		given:
+		def eventSource = new EventSourceImpl()
+		def flowLog = Mock(Logger)
+		new Flow.Builder()
+			.eventSource(eventSource)
+			.failView(view)
+			.rendererFactory({ null })
+			.initial({ throw new IllegalStateException('boom') })
+			.logFailureTraces(false)
+			.log(flowLog)
+			.build()
+		when:
+		eventSource.fire Stub(Event) { getSessionId() >> SESSION_1 }
+		then:
+		1 * flowLog.error(_ as String, _ as Event, 'java.lang.IllegalStateException: boom')
+	}
+
+	private static RuntimeException newException() {
+		new RuntimeException()
+	}
+
+	private View.Context context(Throwable ex, long sessionId) {
+		View.Context.of(ex, null, Stub(Event) { getSessionId() >> sessionId })
+	}
+}
@@ -0,0 +1,95 @@
+package brotherdetjr.pauline.core.dedup
+
+import brotherdetjr.pauline.core.Flow
+import brotherdetjr.pauline.core.View
+import brotherdetjr.pauline.events.Event
+import brotherdetjr.pauline.test.EventSourceImpl
+import spock.lang.Specification
+
+import static java.util.concurrent.TimeUnit.MINUTES
+
+class DedupIndexTest extends Specification {
+
+	static final WINDOW = MINUTES.toMillis(10)
+
+	def now = 0L
+	def clock = { now }
+
+	def 'repeated event id is reported once per session'() {
+		given:
+		def index = new DedupIndex(WINDOW, 1000, 1e-6, 8, 100, clock)
+		expect:
+		index.firstSeen(1L, 100L)
+		!index.firstSeen(1L, 100L)
+		index.firstSeen(2L, 100L)
+		index.firstSeen(1L, 101L)
+		!index.firstSeen(2L, 100L)
+	}
+
+	def 'exact recent ids override false positives of the filter'() {
+		given:
+		def index = new DedupIndex(WINDOW, 1000, 0.99, 1000, 100, clock)
+		expect:
+		(1..500).every { index.firstSeen(1L, it) }
+		(1..500).every { !index.firstSeen(1L, it) }
+	}
+
+	def 'event ids are forgotten after the window'() {
+		given:
+		def index = new DedupIndex(WINDOW, 1000, 1e-6, 8, 100, clock)
+		when:
+		index.firstSeen(1L, 100L)
+		now += WINDOW.intdiv(2)
+		index.firstSeen(2L, 200L)
+		then:
+		!index.firstSeen(1L, 100L)
+		when:
+		now += WINDOW.intdiv(2)
+		then:
+		index.firstSeen(1L, 100L)
+		!index.firstSeen(2L, 200L)
+		when:
+		now += WINDOW
+		then:
+		index.firstSeen(2L, 200L)
+	}
+
+	def 'index survives restart'() {
+		given:
+		def index = new DedupIndex(WINDOW, 1000, 1e-6, 8, 100, clock)
+		(1..50).each { index.firstSeen(it % 5, it) }
+		def out = new ByteArrayOutputStream()
+		when:
+		index.writeTo out
+		def restored = new DedupIndex(WINDOW, 1000, 1e-6, 8, 100, clock)
+		restored.readFrom new ByteArrayInputStream(out.toByteArray())
+		then:
+		(1..50).every { !restored.firstSeen(it % 5, it) }
+		restored.firstSeen(1L, 51L)
+	}
+
+	def 'flow drops redelivered events'() {
+		given:
+		def eventSource = new EventSourceImpl<TestEvent>()
+		def rendered = []
+		def dedup = new DedupIndex(WINDOW, 1000, 1e-6, 8, 100, clock)
+		new Flow.Builder()
+			.eventSource(eventSource)
+			.dedup(dedup, { TestEvent e -> e.updateId })
+			.failView({ ctx -> })
+			.rendererFactory({ null })
+			.initialSync({ TestEvent e -> e.updateId })
+			.handle(TestEvent).sync({ TestEvent e, long from -> e.updateId })
+			.render(Long).as({ View.Context<Long, Object, TestEvent> ctx -> rendered << ctx.state })
+			.build()
+		when:
+		[1L, 2L, 2L, 1L, 3L].each { eventSource.fire new TestEvent(sessionId: 7L, updateId: it) }
+		then:
+		rendered == [1L, 2L, 3L]
+	}
+
+	static class TestEvent implements Event {
+		long sessionId
+		long updateId
+	}
+}
@@ -0,0 +1,262 @@
+package brotherdetjr.pauline.core.eventlog
+
+import brotherdetjr.pauline.core.Flow
+import brotherdetjr.pauline.core.View
+import brotherdetjr.pauline.core.dedup.DedupIndex
+import brotherdetjr.pauline.events.Event
+import brotherdetjr.pauline.test.EventSourceImpl
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.nio.ByteBuffer
+import java.nio.file.Files
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Function
+
+import static java.util.concurrent.CompletableFuture.completedFuture
+
+class EventLogTest extends Specification {
+
+	static final SEGMENT_BYTES = 1024, RETENTION_MILLIS = 1000L
+
+	def dir = Files.createTempDirectory('pauline-event-log')
+	def now = 0L
+	def clock = { now }
+	def conditions = new PollingConditions(timeout: 2)
+	def logs = []
+
+	def cleanup() {
+		logs*.close()
+		dir.toFile().deleteDir()
+	}
+
+	def 'events are dispatched to flow and committed after render'() {
+		given:
+		def eventLog = open()
+		def eventSource = new EventSourceImpl<TestEvent>()
+		def rendered = new CopyOnWriteArrayList()
+		flow(eventSource, eventLog, rendered)
+		when:
+		(1..3).each { eventSource.fire new TestEvent(sessionId: it, value: it * 10) }
+		then:
+		conditions.eventually {
+			assert rendered == [10L, 20L, 30L]
+			assert eventLog.committedOffset == 3
+		}
+	}
+
+	def 'uncommitted events are replayed after restart'() {
+		given:
+		def eventLog = open()
+		(1..5).each { eventLog.append new TestEvent(sessionId: it, value: it) }
+		def seen = new CopyOnWriteArrayList()
+		eventLog.onEvent { TestEvent e ->
+			seen << e.value
+			if (e.value <= 2) {
+				eventLog.commit e
+			}
+		}
+		conditions.eventually {
+			assert seen == [1L, 2L, 3L, 4L, 5L]
+			assert eventLog.committedOffset == 2
+		}
+		eventLog.close()
+		when:
+		def reopened = open()
+		def replayed = new CopyOnWriteArrayList()
+		reopened.onEvent { TestEvent e -> replayed << e.value }
+		then:
+		reopened.endOffset == 5
+		conditions.eventually {
+			assert replayed == [3L, 4L, 5L]
+		}
+	}
+
+	def 'deduplicated event left uncommitted is replayed after restart'() {
+		given:
+		def dedupIndex = new DedupIndex(60_000, 100, 1e-6, 32, 100, clock)
+		def eventSource = new EventSourceImpl<TestEvent>()
+		def eventLog = open()
+		def first = new CopyOnWriteArrayList()
+		flow(eventSource, eventLog, first, dedupIndex, { TestEvent e -> new CompletableFuture() })
+		eventSource.fire new TestEvent(sessionId: 1, value: 10)
+		eventSource.fire new TestEvent(sessionId: 1, value: 10)
+		conditions.eventually {
+			assert eventLog.endOffset == 1
+		}
+		eventLog.close()
+		when:
+		def reopened = open()
+		def rendered = new CopyOnWriteArrayList()
+		flow(new EventSourceImpl<TestEvent>(), reopened, rendered, dedupIndex, { TestEvent e -> completedFuture(e.value) })
+		then:
+		conditions.eventually {
+			assert rendered == [10L]
+			assert reopened.committedOffset == 1
+		}
+		first == []
+	}
+
+	def 'event is committed when its completion is rejected by executor'() {
+		given:
+		def eventLog = open()
+		def eventSource = new EventSourceImpl<TestEvent>()
+		def executions = new AtomicInteger()
+		def failures = new CopyOnWriteArrayList()
+		def sessions = [:] as ConcurrentHashMap
+		new Flow.Builder()
+			.eventSource(eventSource)
+			.eventLog(eventLog)
+			.sessions(sessions)
+			.executor({ Runnable task ->
+				if (executions.incrementAndGet() % 2 == 0) {
+					throw new RejectedExecutionException()
+				}
+				task.run()
+			})
+			.failView({ View.Context ctx -> failures << ctx.state })
+			.rendererFactory({ null })
+			.initial({ TestEvent e -> completedFuture(e.value) })
+			.render(Long).as({ ctx -> })
+			.build()
+		when:
+		eventSource.fire new TestEvent(sessionId: 1, value: 10)
+		then:
+		conditions.eventually {
+			assert eventLog.committedOffset == 1
+		}
+		failures*.class == [RejectedExecutionException]
+		!sessions[1L].busy
+	}
+
+	def 'dispatch waits while in-flight events reach the limit'() {
+		given:
+		def eventLog = open(3)
+		def seen = new CopyOnWriteArrayList<TestEvent>()
+		eventLog.onEvent { TestEvent e -> seen << e }
+		when:
+		(1..10).each { eventLog.append new TestEvent(sessionId: it, value: it) }
+		then:
+		conditions.eventually {
+			assert seen*.value == [1L, 2L, 3L]
+		}
+		when:
+		sleep 100
+		then:
+		seen.size() == 3
+		eventLog.inFlightCount == 3
+		when:
+		eventLog.commit seen[1]
+		then:
+		conditions.eventually {
+			assert seen*.value == [1L, 2L, 3L, 4L]
+		}
+		eventLog.committedOffset == 0
+		when:
+		seen.each { eventLog.commit it }
+		then:
+		conditions.eventually {
+			assert seen.size() == 7
+			assert eventLog.committedOffset == 4
+		}
+	}
+
+	def 'segments roll and committed ones are deleted after retention'() {
+		given:
+		def eventLog = open()
+		eventLog.onEvent { TestEvent e -> eventLog.commit e }
+		when:
+		(1..200).each { eventLog.append new TestEvent(sessionId: it, value: it) }
+		then:
+		eventLog.segmentCount > 1
+		conditions.eventually {
+			assert eventLog.committedOffset == 200
+		}
+		when:
+		now += RETENTION_MILLIS
+		eventLog.append new TestEvent(sessionId: 1, value: 201)
+		then:
+		conditions.eventually {
+			assert eventLog.committedOffset == 201
+			assert eventLog.segmentCount == 1
+		}
+	}
+
+	def 'torn tail is discarded on recovery'() {
+		given:
+		def eventLog = open()
+		(1..3).each { eventLog.append new TestEvent(sessionId: it, value: it) }
+		eventLog.close()
+		def segment = Files.list(dir).find { it.toString().endsWith('.log') }
+		def bytes = Files.readAllBytes(segment)
+		def tornAt = 3 * (Segment.HEADER_BYTES + 16)
+		ByteBuffer.wrap(bytes).putInt(tornAt, 16).putInt(tornAt + 4, 42)
+		Files.write segment, bytes
+		when:
+		def reopened = open()
+		def replayed = new CopyOnWriteArrayList()
+		reopened.onEvent { TestEvent e -> replayed << e.value }
+		reopened.append new TestEvent(sessionId: 4, value: 4)
+		then:
+		conditions.eventually {
+			assert replayed == [1L, 2L, 3L, 4L]
+		}
+	}
+
+	private EventLog<TestEvent> open(int maxInFlight = EventLog.DEFAULT_MAX_IN_FLIGHT) {
+		def eventLog = new EventLog<TestEvent>(
+			dir, new TestEventCodec(), SEGMENT_BYTES, RETENTION_MILLIS, maxInFlight, clock
+		)
+		logs << eventLog
+		eventLog
+	}
+
+	private static void flow(EventSourceImpl<TestEvent> eventSource, EventLog<TestEvent> eventLog, List rendered) {
+		new Flow.Builder()
+			.eventSource(eventSource)
+			.eventLog(eventLog)
+			.failView({ ctx -> })
+			.rendererFactory({ null })
+			.initialSync({ TestEvent e -> e.value })
+			.render(Long).as({ View.Context<Long, Object, TestEvent> ctx -> rendered << ctx.state })
+			.build()
+	}
+
+	private static void flow(EventSourceImpl<TestEvent> eventSource,
+							 EventLog<TestEvent> eventLog,
+							 List rendered,
+							 DedupIndex dedupIndex,
+							 Function<TestEvent, CompletableFuture<Long>> initial) {
+		new Flow.Builder()
+			.eventSource(eventSource)
+			.eventLog(eventLog)
+			.dedup(dedupIndex, { TestEvent e -> e.value })
+			.failView({ ctx -> })
+			.rendererFactory({ null })
+			.initial(initial)
+			.render(Long).as({ View.Context<Long, Object, TestEvent> ctx -> rendered << ctx.state })
+			.build()
+	}
+
+	static class TestEvent implements Event {
+		long sessionId
+		long value
+	}
+
+	static class TestEventCodec implements EventCodec<TestEvent> {
+		@Override
+		byte[] encode(TestEvent event) {
+			ByteBuffer.allocate(16).putLong(event.sessionId).putLong(event.value).array()
+		}
+
+		@Override
+		TestEvent decode(byte[] bytes) {
+			def buffer = ByteBuffer.wrap(bytes)
+			new TestEvent(sessionId: buffer.getLong(), value: buffer.getLong())
+		}
+	}
+}
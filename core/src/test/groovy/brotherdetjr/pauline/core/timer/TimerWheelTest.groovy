@@ -0,0 +1,88 @@
+package brotherdetjr.pauline.core.timer
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class TimerWheelTest extends Specification {
+
+	@Unroll
+	def 'timer due on a cascade boundary fires on its own tick. Deadline: #deadline'() {
+		given:
+		def wheel = new TimerWheel<Long>(0L, 1L)
+		wheel.add new Timer<Long>(1L, deadline, null)
+		def fired = []
+		when:
+		wheel.advance(deadline - 1) { fired << it.id }
+		then:
+		fired == []
+		when:
+		wheel.advance(deadline) { fired << it.id }
+		then:
+		fired == [1L]
+		where:
+		deadline << [255L, 256L, 257L, 512L, 65536L, 65536L + 256L, 1L << 24, (1L << 24) + 65536L]
+	}
+
+	@Unroll
+	def 'timers fire exactly when due across all levels. Seed: #seed'() {
+		given:
+		def random = new Random(seed)
+		def wheel = new TimerWheel<Long>(0L, 1L)
+		def horizon = 1L << 25
+		def cancelled = [] as Set
+		5000.times { id ->
+			wheel.add new Timer<Long>(id, random.nextDouble() < 0.01 ? -5L : (long) (random.nextDouble() * horizon), null)
+			if (random.nextDouble() < 0.1) {
+				cancelled << (long) id
+			}
+		}
+		cancelled.each { assert wheel.cancel(it) }
+		def fired = []
+		def now = 0L
+		def misfired = []
+		when:
+		while (now < horizon + 1) {
+			def previous = now
+			now += 1 + random.nextInt(1 << 20)
+			wheel.advance(now) { Timer<Long> t ->
+				fired << t.id
+				if (t.deadlineMillis > now || t.deadlineMillis > 0 && t.deadlineMillis <= previous) {
+					misfired << t
+				}
+			}
+		}
+		then:
+		misfired == []
+		fired.size() == 5000 - cancelled.size()
+		fired.intersect(cancelled as List) == []
+		wheel.size() == 0
+		where:
+		seed << [1L, 2L, 3L]
+	}
+
+	def 'timer beyond wheel horizon is kept until due'() {
+		given:
+		def wheel = new TimerWheel<String>(0L, 1000L)
+		def deadline = (1L << 33) * 1000L
+		wheel.add new Timer<String>(1L, deadline, 'far')
+		def fired = []
+		when:
+		wheel.advance((1L << 24) * 1000L) { fired << it.payload }
+		then:
+		fired == []
+		wheel.size() == 1
+	}
+
+	def 'cancelled timer is not fired'() {
+		given:
+		def wheel = new TimerWheel<String>(0L, 10L)
+		wheel.add new Timer<String>(1L, 100L, 'a')
+		wheel.add new Timer<String>(2L, 100L, 'b')
+		def fired = []
+		when:
+		wheel.cancel 1L
+		wheel.advance(100L) { fired << it.payload }
+		then:
+		fired == ['b']
+	}
+}
@@ -0,0 +1,120 @@
+package brotherdetjr.pauline.core.timer
+
+import brotherdetjr.pauline.core.Flow
+import brotherdetjr.pauline.core.View
+import brotherdetjr.pauline.events.Event
+import brotherdetjr.pauline.test.EventSourceImpl
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+
+import static java.util.concurrent.CompletableFuture.completedFuture
+import static java.util.concurrent.TimeUnit.MINUTES
+import static java.util.concurrent.TimeUnit.SECONDS
+
+class TimersTest extends Specification {
+
+	def now = 0L
+	def clock = { now }
+
+	def 'controller schedules timeout that is dispatched as synthetic event'() {
+		given:
+		def timers = new Timers<Event>(1000L, TimerStore.none(), clock)
+		def eventSource = new EventSourceImpl<Event>()
+		def rendered = []
+		new Flow.Builder()
+			.eventSource(eventSource)
+			.timers(timers)
+			.failView({ ctx -> })
+			.rendererFactory({ null })
+			.initial({ Event e ->
+				timers.schedule new TimeoutEvent(sessionId: e.sessionId), 10, MINUTES
+				completedFuture 'waiting'
+			})
+			.handle(TimeoutEvent).by({ TimeoutEvent e, String from -> completedFuture 'timed out' })
+			.render(String).as({ View.Context<String, Object, Event> ctx -> rendered << ctx.state })
+			.build()
+		when:
+		eventSource.fire new UserEvent(sessionId: 1L)
+		now = MINUTES.toMillis(10) - 1
+		timers.advance()
+		then:
+		rendered == ['waiting']
+		timers.size() == 1
+		when:
+		now = MINUTES.toMillis(10)
+		timers.advance()
+		then:
+		rendered == ['waiting', 'timed out']
+		timers.size() == 0
+	}
+
+	def 'timer firing while session is busy is deferred instead of rendered as failure'() {
+		given:
+		def timers = new Timers<Event>(1000L, TimerStore.none(), clock)
+		def eventSource = new EventSourceImpl<Event>()
+		def rendered = []
+		def failures = []
+		def transition = new CompletableFuture()
+		new Flow.Builder()
+			.eventSource(eventSource)
+			.timers(timers)
+			.failView({ View.Context ctx -> failures << ctx.state })
+			.rendererFactory({ null })
+			.initial({ Event e -> completedFuture 'waiting' })
+			.handle(UserEvent).by({ UserEvent e, String from -> transition })
+			.handle(TimeoutEvent).by({ TimeoutEvent e, String from -> completedFuture 'timed out' })
+			.render(String).as({ View.Context<String, Object, Event> ctx -> rendered << ctx.state })
+			.build()
+		eventSource.fire new UserEvent(sessionId: 1L)
+		eventSource.fire new UserEvent(sessionId: 1L)
+		timers.schedule new TimeoutEvent(sessionId: 1L), 1, SECONDS
+		when:
+		now = SECONDS.toMillis(1)
+		timers.advance()
+		then:
+		rendered == ['waiting']
+		failures == []
+		timers.size() == 1
+		when:
+		transition.complete 'answered'
+		now = SECONDS.toMillis(2)
+		timers.advance()
+		then:
+		rendered == ['waiting', 'answered', 'timed out']
+		failures == []
+		timers.size() == 0
+	}
+
+	def 'pending timers are persisted and restored'() {
+		given:
+		def stored = [:]
+		def store = [
+			save  : { Timer t -> stored[t.id] = t },
+			remove: { long id -> stored.remove id },
+			load  : { stored.values() }
+		] as TimerStore
+		def timers = new Timers<Event>(1000L, store, clock)
+		def id1 = timers.schedule new TimeoutEvent(sessionId: 1L), 1, MINUTES
+		def id2 = timers.schedule new TimeoutEvent(sessionId: 2L), 2, MINUTES
+		timers.cancel id1
+		def fired = []
+		when:
+		def restored = new Timers<Event>(1000L, store, clock)
+		restored.onEvent { fired << it.sessionId }
+		now = MINUTES.toMillis(2)
+		restored.advance()
+		then:
+		stored.isEmpty()
+		fired == [2L]
+		restored.schedule(new TimeoutEvent(sessionId: 3L), 1, MINUTES) > id2
+	}
+
+	static class UserEvent implements Event {
+		long sessionId
+	}
+
+	static class TimeoutEvent implements Event {
+		long sessionId
+	}
+}
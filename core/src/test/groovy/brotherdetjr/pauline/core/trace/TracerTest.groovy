@@ -0,0 +1,142 @@
+package brotherdetjr.pauline.core.trace
+
+import brotherdetjr.pauline.core.Flow
+import brotherdetjr.pauline.core.View
+import brotherdetjr.pauline.events.Event
+import brotherdetjr.pauline.test.EventSourceImpl
+import spock.lang.Specification
+
+import java.nio.file.Files
+
+import static java.util.concurrent.CompletableFuture.completedFuture
+
+class TracerTest extends Specification {
+
+	def 'sampled event is traced through dispatch, transit and render'() {
+		given:
+		def sink = new InMemorySpanSink(100)
+		def eventSource = newFlow(new Tracer(1.0, sink))
+		when:
+		eventSource.fire new EventImpl(sessionId: 3L)
+		eventSource.fire new EventImpl(sessionId: 3L)
+		then:
+		sink.spans*.name == ['queue', 'lock', 'transit', 'queue', 'lock', 'render'] * 2
+		sink.spans*.traceId.unique() == [1L, 2L]
+		sink.spans*.sessionId.unique() == [3L]
+		sink.spans.every { it.durationNanos >= 0 && it.offsetNanos >= 0 }
+	}
+
+	def 'not sampled event produces no spans'() {
+		given:
+		def sink = Mock(SpanSink)
+		def eventSource = newFlow(new Tracer(0.0, sink))
+		when:
+		eventSource.fire new EventImpl(sessionId: 3L)
+		then:
+		0 * sink.export(_)
+	}
+
+	def 'current trace is visible to renderer'() {
+		given:
+		def sink = new InMemorySpanSink(100)
+		def eventSource = new EventSourceImpl()
+		new Flow.Builder()
+			.eventSource(eventSource)
+			.failView({ ctx -> })
+			.rendererFactory({ { -> } })
+			.initial({ completedFuture 1L })
+			.render(Long).as({ View.Context ctx -> Trace.current().span('send').end() })
+			.tracer(new Tracer(1.0, sink))
+			.build()
+		when:
+		eventSource.fire new EventImpl(sessionId: 3L)
+		then:
+		sink.spans*.name.contains 'send'
+		Trace.current() == Trace.NOOP
+	}
+
+	def 'file sink appends spans as lines'() {
+		given:
+		def file = Files.createTempFile('spans', '.tsv')
+		def sink = new FileSpanSink(file)
+		when:
+		sink.export new SpanData(1L, 2L, 'render', 3L, 4L, 5L)
+		sink.close()
+		then:
+		file.readLines() == ['1\t2\trender\t3\t4\t5']
+		cleanup:
+		Files.delete file
+	}
+
+	def 'file sink flushes after every N spans'() {
+		given:
+		def file = Files.createTempFile('spans', '.tsv')
+		def sink = new FileSpanSink(file, 2, 60_000)
+		when:
+		sink.export new SpanData(1L, 2L, 'lock', 3L, 4L, 5L)
+		then:
+		file.readLines() == []
+		when:
+		sink.export new SpanData(1L, 2L, 'render', 3L, 4L, 5L)
+		then:
+		file.readLines() == ['1\t2\tlock\t3\t4\t5', '1\t2\trender\t3\t4\t5']
+		cleanup:
+		sink.close()
+		Files.delete file
+	}
+
+	def 'transit span is ended when controller throws'() {
+		given:
+		def sink = new InMemorySpanSink(100)
+		def eventSource = new EventSourceImpl()
+		new Flow.Builder()
+			.eventSource(eventSource)
+			.failView({ ctx -> })
+			.rendererFactory({ { -> } })
+			.initial({ throw new IllegalStateException() })
+			.tracer(new Tracer(1.0, sink))
+			.build()
+		when:
+		eventSource.fire new EventImpl(sessionId: 3L)
+		then:
+		sink.spans*.name == ['queue', 'lock', 'transit', 'renderFail']
+	}
+
+	def 'failing span sink does not break event processing'() {
+		given:
+		def rendered = []
+		def eventSource = new EventSourceImpl()
+		new Flow.Builder()
+			.eventSource(eventSource)
+			.failView({ ctx -> })
+			.rendererFactory({ { -> } })
+			.initial({ completedFuture 1L })
+			.handle(EventImpl).by({ EventImpl e, long from -> completedFuture from + 1 })
+			.render(Long).as({ View.Context ctx -> rendered << ctx.state })
+			.tracer(new Tracer(1.0, { throw new IOException('Stream closed') } as SpanSink))
+			.build()
+		when:
+		eventSource.fire new EventImpl(sessionId: 3L)
+		eventSource.fire new EventImpl(sessionId: 3L)
+		then:
+		rendered == [1L, 2L]
+	}
+
+	private static EventSourceImpl newFlow(Tracer tracer) {
+		def eventSource = new EventSourceImpl()
+		new Flow.Builder()
+			.eventSource(eventSource)
+			.failView({ ctx -> })
+			.rendererFactory({ { -> } })
+			.initial({ completedFuture 1L })
+			.handle(EventImpl).by({ EventImpl e, long from -> completedFuture from + 1 })
+			.render(Long).as({ ctx -> })
+			.tracer(tracer)
+			.build()
+		eventSource
+	}
+
+	static class EventImpl implements Event {
+		long sessionId
+	}
+}
@@ -0,0 +1,42 @@
+package brotherdetjr.pauline.telegram.test;
+
+import brotherdetjr.pauline.core.Flow;
+import brotherdetjr.pauline.core.SessionStore;
+import brotherdetjr.pauline.telegram.TelegramBotHost;
+import brotherdetjr.pauline.telegram.TelegramFlowConfigurer;
+import brotherdetjr.pauline.telegram.TelegramRenderer;
+import brotherdetjr.pauline.telegram.events.TelegramEvent;
+import brotherdetjr.pauline.telegram.transport.HttpTransport;
+
+import java.util.concurrent.CountDownLatch;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+public class StartupBenchmark {
+	public static final String RESULT_PREFIX = "configure-to-first-event-ms=";
+	public static final String HOST = "host";
+	public static final String CONFIGURE = "configure";
+
+	public static void main(String[] args) throws Exception {
+		String mode = args.length > 0 ? args[0] : HOST;
+		try (StubTelegramServer server = new StubTelegramServer(1)) {
+			server.textMessage("token", 1, 1, 1L, "hello");
+			CountDownLatch handled = new CountDownLatch(1);
+			long started = System.nanoTime();
+			try (HttpTransport transport = new HttpTransport(server.getBaseUrl(), 2);
+				 TelegramBotHost host = new TelegramBotHost(directExecutor(), transport, new SessionStore(), 1, 30)) {
+				Flow.Builder<TelegramRenderer, TelegramEvent> builder = CONFIGURE.equals(mode) ?
+					TelegramFlowConfigurer.configure(TelegramFlowConfigurer.flow(), "token", "startup", host) :
+					host.bot("token", "startup");
+				builder
+					.initial(e -> completedFuture(e.getUserId()))
+					.render(Long.class).as(ctx -> handled.countDown())
+					.build();
+				handled.await();
+				System.out.println(RESULT_PREFIX + NANOSECONDS.toMillis(System.nanoTime() - started));
+			}
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package brotherdetjr.pauline.telegram.test;
+
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.SneakyThrows;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newConcurrentMap;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+
+public class StubTelegramServer implements Closeable {
+	private static final String OK = "{\"ok\":true,\"result\":%s}";
+	private static final byte[] FAILED = "{\"ok\":false,\"description\":\"Stubbed failure\"}".getBytes(UTF_8);
+	private static final String TEXT_MESSAGE_UPDATE = "{\"update_id\":%d,\"message\":{\"message_id\":%d,\"date\":0," +
+		"\"chat\":{\"id\":%d,\"type\":\"private\"},\"from\":{\"id\":%d,\"first_name\":\"Test\"," +
+		"\"username\":\"testUser\"},\"text\":\"%s\"}}";
+
+	private static final long LONG_POLL_CHECK_MILLIS = 5;
+
+	static {
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final AtomicLong received = new AtomicLong();
+	private final Map<String, Queue<String>> updates = newConcurrentMap();
+	private final Map<String, Queue<String>> sent = newConcurrentMap();
+	@Setter
+	private volatile boolean failing;
+	@Setter
+	private volatile long sendDelayMillis;
+	private volatile boolean closed;
+	@Getter
+	private final String baseUrl;
+
+	@SneakyThrows(IOException.class)
+	public StubTelegramServer(int threads) {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		executor = newFixedThreadPool(threads);
+		server.setExecutor(executor);
+		server.createContext("/bot", this::respond);
+		server.start();
+		baseUrl = "http://localhost:" + server.getAddress().getPort() + "/bot";
+	}
+
+	public long getReceived() {
+		return received.get();
+	}
+
+	public StubTelegramServer textMessage(String token, int updateId, int userId, long chatId, String text) {
+		queue(updates, token).add(
+			String.format(TEXT_MESSAGE_UPDATE, updateId, updateId, chatId, userId, text.replace("\"", "\\\""))
+		);
+		return this;
+	}
+
+	public List<String> getSent(String token) {
+		return newArrayList(queue(sent, token));
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		server.stop(0);
+		executor.shutdown();
+	}
+
+	@SneakyThrows(InterruptedException.class)
+	private void respond(HttpExchange exchange) throws IOException {
+		String body = new String(ByteStreams.toByteArray(exchange.getRequestBody()), UTF_8);
+		received.incrementAndGet();
+		String path = exchange.getRequestURI().getPath();
+		String token = path.substring("/bot".length(), path.lastIndexOf('/'));
+		String result;
+		if (path.endsWith("/getUpdates")) {
+			List<String> pending = newArrayList();
+			Queue<String> queue = queue(updates, token);
+			String timeout = param(body, "timeout");
+			long deadline = System.currentTimeMillis() + 1000L * (timeout != null ? Long.parseLong(timeout) : 0);
+			while (true) {
+				for (String update = queue.poll(); update != null; update = queue.poll()) {
+					pending.add(update);
+				}
+				if (!pending.isEmpty() || closed || System.currentTimeMillis() >= deadline) {
+					break;
+				}
+				Thread.sleep(LONG_POLL_CHECK_MILLIS);
+			}
+			result = "[" + String.join(",", pending) + "]";
+		} else {
+			if (sendDelayMillis > 0) {
+				Thread.sleep(sendDelayMillis);
+			}
+			queue(sent, token).add(param(body, "chat_id") + ":" + param(body, "text"));
+			result = "{}";
+		}
+		byte[] response = failing ? FAILED : String.format(OK, result).getBytes(UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, response.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(response);
+		}
+	}
+
+	private static Queue<String> queue(Map<String, Queue<String>> queues, String token) {
+		return queues.computeIfAbsent(token, ignore -> new ConcurrentLinkedQueue<>());
+	}
+
+	private static String param(String body, String name) throws UnsupportedEncodingException {
+		for (String pair : body.split("&")) {
+			if (pair.startsWith(name + "=")) {
+				return URLDecoder.decode(pair.substring(name.length() + 1), UTF_8.name());
+			}
+		}
+		return null;
+	}
+}
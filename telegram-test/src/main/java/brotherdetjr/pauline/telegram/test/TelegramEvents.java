@@ -6,6 +6,10 @@ import lombok.experimental.UtilityClass;
 @UtilityClass
 public class TelegramEvents {
 	public static TextMessageEvent textMessage(String text) {
-		return new TextMessageEvent("testUser", 33L, 9000L, text);
+		return textMessage(0L, text);
+	}
+
+	public static TextMessageEvent textMessage(long updateId, String text) {
+		return new TextMessageEvent(updateId, "testUser", 33L, 9000L, text);
 	}
 }
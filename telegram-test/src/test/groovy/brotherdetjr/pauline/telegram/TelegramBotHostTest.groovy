@@ -0,0 +1,153 @@
+package brotherdetjr.pauline.telegram
+
+import brotherdetjr.pauline.core.SessionStore
+import brotherdetjr.pauline.core.View
+import brotherdetjr.pauline.telegram.events.TelegramEvent
+import brotherdetjr.pauline.telegram.events.TextMessageEvent
+import brotherdetjr.pauline.telegram.test.StubTelegramServer
+import brotherdetjr.pauline.telegram.transport.HttpTransport
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.lang.Timeout
+import spock.lang.Unroll
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.ExecutionException
+
+import static java.util.concurrent.CompletableFuture.completedFuture
+import static java.util.concurrent.Executors.newFixedThreadPool
+
+@Timeout(10)
+class TelegramBotHostTest extends Specification {
+
+	static final USER = 7, CHAT = 70L
+
+	@AutoCleanup
+	def server = new StubTelegramServer(4)
+
+	@AutoCleanup
+	def transport = new HttpTransport(server.baseUrl, 4)
+
+	def sessions = new SessionStore()
+
+	@AutoCleanup
+	def host = new TelegramBotHost(newFixedThreadPool(4), transport, sessions, 10, 100)
+
+	def conditions = new PollingConditions(timeout: 5)
+
+	def 'hosted bots share runtime but keep sessions isolated'() {
+		given:
+		counter('token1', 'bot1')
+		counter('token2', 'bot2')
+		when:
+		server.textMessage('token1', 1, USER, CHAT, 'a')
+		server.textMessage('token2', 1, USER, CHAT, 'b')
+		then:
+		conditions.eventually {
+			assert server.getSent('token1') == ["$CHAT:a1"]
+			assert server.getSent('token2') == ["$CHAT:b1"]
+		}
+		when:
+		server.textMessage('token1', 2, USER, CHAT, 'c')
+		then:
+		conditions.eventually {
+			assert server.getSent('token1') == ["$CHAT:a1", "$CHAT:c2"]
+			assert server.getSent('token2') == ["$CHAT:b1"]
+		}
+		sessions.namespace('bot1').get(USER as long).state == 2L
+		sessions.namespace('bot2').get(USER as long).state == 1L
+	}
+
+	def 'broadcast is sent to chats resolved for sessions'() {
+		given:
+		counter('token1', 'bot1')
+		def chats = [(USER as long): CHAT]
+		def sender = host.broadcastSender('bot1', { long sessionId -> chats[sessionId] }, { "count $it".toString() })
+		when:
+		sender.send(USER, 1L).get()
+		sender.send(USER + 1, 2L).get()
+		then:
+		def ex = thrown(ExecutionException)
+		ex.cause instanceof IllegalStateException
+		server.getSent('token1') == ["$CHAT:count 1"]
+	}
+
+	def 'bot name must be unique within host'() {
+		given:
+		host.bot('token1', 'bot1')
+		when:
+		host.bot('token2', 'bot1')
+		then:
+		thrown(IllegalArgumentException)
+	}
+
+	def 'ingestion is not stalled by a burst of outbound messages'() {
+		given:
+		def sendingTransport = new HttpTransport(server.baseUrl, 1)
+		def sendingHost = new TelegramBotHost(newFixedThreadPool(4), sendingTransport, sessions, 10, 1000)
+		def received = new CopyOnWriteArrayList()
+		server.sendDelayMillis = 200
+		def outbound = sendingTransport.forToken('token2')
+		when:
+		def sends = (1..20).collect { outbound.sendMessage(CHAT, "burst $it") }
+		server.textMessage('token1', 1, USER, CHAT, 'hello')
+		sendingHost.bot('token1', 'bot1')
+			.initial({ TelegramEvent e -> received << e.updateId; completedFuture 1L })
+			.render(Long).as({ ctx -> })
+			.build()
+		then:
+		new PollingConditions(timeout: 1).eventually {
+			assert received == [1L]
+		}
+		!sends.every { it.done }
+		cleanup:
+		sendingHost.close()
+		sendingTransport.close()
+	}
+
+	@Unroll
+	def 'long poll timeout for #bots bots on #threads threads is #timeout seconds'() {
+		expect:
+		TelegramBotHost.longPollTimeoutSeconds(bots, threads) == timeout
+		where:
+		bots | threads || timeout
+		1    | 4       || 25
+		4    | 4       || 25
+		5    | 4       || 0
+		1000 | 4       || 0
+	}
+
+	def 'idle bots outnumbering poll threads do not delay ingestion'() {
+		given:
+		def pollingTransport = new HttpTransport(server.baseUrl, 1, 2)
+		def pollingHost = new TelegramBotHost(newFixedThreadPool(4), pollingTransport, sessions, 10, 100)
+		def received = new CopyOnWriteArrayList()
+		(1..40).each { i ->
+			pollingHost.bot("token$i", "bot$i")
+				.initial({ TelegramEvent e -> received << i; completedFuture 1L })
+				.render(Long).as({ ctx -> })
+				.build()
+		}
+		sleep 500
+		when:
+		server.textMessage('token40', 1, USER, CHAT, 'hello')
+		then:
+		new PollingConditions(timeout: 1).eventually {
+			assert received == [40]
+		}
+		cleanup:
+		pollingHost.close()
+		pollingTransport.close()
+	}
+
+	private void counter(String token, String name) {
+		host.bot(token, name)
+			.initial({ TelegramEvent e -> completedFuture 1L })
+			.handle(TextMessageEvent).by({ TextMessageEvent e, Long count -> completedFuture count + 1 })
+			.render(Long).as({ View.Context<Long, TelegramRenderer, TextMessageEvent> ctx ->
+				ctx.renderer.send ctx.event.text + ctx.state
+			})
+			.build()
+	}
+}
@@ -0,0 +1,25 @@
+package brotherdetjr.pauline.telegram.events
+
+import spock.lang.Specification
+
+class TelegramEventCodecTest extends Specification {
+
+	def codec = new TelegramEventCodec()
+
+	def 'events survive round trip'() {
+		when:
+		def decoded = codec.decode(codec.encode(event))
+		then:
+		decoded.class == event.class
+		decoded.updateId == event.updateId
+		decoded.userName == event.userName
+		decoded.userId == event.userId
+		decoded.chatId == event.chatId
+		!(event instanceof TextMessageEvent) || decoded.text == event.text
+		where:
+		event << [
+			new TextMessageEvent(7L, 'testUser', 33L, 9000L, 'привет'),
+			new TelegramEvent(8L, null, 33L, 9000L)
+		]
+	}
+}
@@ -0,0 +1,34 @@
+package brotherdetjr.pauline.telegram.test
+
+import groovy.util.logging.Slf4j
+import spock.lang.Specification
+import spock.lang.Timeout
+import spock.lang.Unroll
+
+@Slf4j
+@Timeout(60)
+class StartupBenchmarkTest extends Specification {
+
+	@Unroll
+	def 'first event is handled in fresh JVM without initializing long polling machinery via #mode'() {
+		given:
+		def java = new File(System.getProperty('java.home'), 'bin/java').path
+		def process = new ProcessBuilder(
+			java, '-verbose:class', '-cp', System.getProperty('java.class.path'), StartupBenchmark.name, mode
+		).redirectErrorStream(true).start()
+		when:
+		def output = process.inputStream.readLines()
+		process.waitFor()
+		def result = output.find { it.startsWith StartupBenchmark.RESULT_PREFIX }
+		def longPollingClasses = output.findAll {
+			it.contains('org.telegram.telegrambots.ApiContextInitializer') || it.contains('com.google.inject.')
+		}
+		log.info result
+		then:
+		process.exitValue() == 0
+		result != null
+		longPollingClasses == []
+		where:
+		mode << [StartupBenchmark.HOST, StartupBenchmark.CONFIGURE]
+	}
+}
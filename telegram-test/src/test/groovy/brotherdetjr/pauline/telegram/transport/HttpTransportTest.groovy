@@ -0,0 +1,58 @@
+package brotherdetjr.pauline.telegram.transport
+
+import brotherdetjr.pauline.telegram.test.StubTelegramServer
+import groovy.util.logging.Slf4j
+import org.telegram.telegrambots.exceptions.TelegramApiRequestException
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.lang.Timeout
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+
+@Slf4j
+@Timeout(30)
+class HttpTransportTest extends Specification {
+
+	static final MESSAGES = 5000
+
+	@AutoCleanup
+	def server = new StubTelegramServer(8)
+
+	@AutoCleanup
+	def transport = new HttpTransport(server.baseUrl, 16)
+
+	def 'all messages are delivered through shared pooled transport'() {
+		given:
+		def bot1 = transport.forToken('token1')
+		def bot2 = transport.forToken('token2')
+		when:
+		def started = System.nanoTime()
+		def futures = (1..MESSAGES).collect { (it % 2 ? bot1 : bot2).sendMessage(it, "Message #$it & more") }
+		CompletableFuture.allOf(futures as CompletableFuture[]).get()
+		def millis = (System.nanoTime() - started) / 1_000_000
+		log.info "Sent $MESSAGES messages in $millis ms"
+		then:
+		server.received == MESSAGES
+	}
+
+	def 'message text is form-encoded as UTF-8'() {
+		given:
+		def text = 'Привет, мир! 50% off & more = 😀 ~ "quoted" ' + ('x' * 70_000)
+		when:
+		transport.forToken('token').sendMessage(7L, text).get()
+		transport.forToken('token').sendMessage(8L, 'short').get()
+		then:
+		server.getSent('token') == ["7:$text", '8:short']
+	}
+
+	def 'failed response completes future exceptionally'() {
+		given:
+		server.failing = true
+		when:
+		transport.forToken('token').sendMessage(1L, 'hello').get()
+		then:
+		def ex = thrown(ExecutionException)
+		ex.cause instanceof TelegramApiRequestException
+	}
+}
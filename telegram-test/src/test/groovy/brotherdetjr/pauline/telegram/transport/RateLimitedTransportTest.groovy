@@ -0,0 +1,86 @@
+package brotherdetjr.pauline.telegram.transport
+
+import spock.lang.Specification
+import spock.lang.Timeout
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.RejectedExecutionException
+
+import static java.util.concurrent.CompletableFuture.completedFuture
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor
+
+@Timeout(10)
+class RateLimitedTransportTest extends Specification {
+
+	def scheduler = newSingleThreadScheduledExecutor()
+
+	def cleanup() {
+		scheduler.shutdownNow()
+	}
+
+	def 'synchronous failure of delegate completes future exceptionally'() {
+		given:
+		def transport = new RateLimitedTransport({ long chatId, String text ->
+			throw new IllegalStateException(text)
+		}, 100, scheduler)
+		when:
+		def immediate = transport.sendMessage(1, 'immediate')
+		def delayed = transport.sendMessage(1, 'delayed')
+		immediate.get()
+		then:
+		def ex = thrown(ExecutionException)
+		ex.cause.message == 'immediate'
+		when:
+		delayed.get()
+		then:
+		ex = thrown(ExecutionException)
+		ex.cause.message == 'delayed'
+	}
+
+	def 'send scheduled on shut down scheduler completes future exceptionally'() {
+		given:
+		def transport = new RateLimitedTransport({ long chatId, String text -> completedFuture(null) }, 100, scheduler)
+		transport.sendMessage(1, 'first').get()
+		scheduler.shutdown()
+		when:
+		transport.sendMessage(1, 'second').get()
+		then:
+		def ex = thrown(ExecutionException)
+		ex.cause instanceof RejectedExecutionException
+	}
+
+	def 'background sends only take slots left free by regular sends'() {
+		given:
+		def delivered = new CopyOnWriteArrayList()
+		def transport = new RateLimitedTransport({ long chatId, String text ->
+			delivered << text
+			completedFuture(null)
+		}, 10, scheduler)
+		def background = transport.background()
+		when:
+		def broadcast = (1..3).collect { background.sendMessage(1, "broadcast $it") }
+		sleep 10
+		def reply = transport.sendMessage(1, 'reply')
+		(broadcast + reply)*.get()
+		then:
+		delivered == ['broadcast 1', 'reply', 'broadcast 2', 'broadcast 3']
+	}
+
+	def 'sends beyond queue limit are rejected without taking a slot'() {
+		given:
+		def transport = new RateLimitedTransport({ long chatId, String text -> completedFuture(text) }, 1, 2, scheduler)
+		when:
+		def futures = (1..4).collect { transport.sendMessage(1, "message $it") }
+		then:
+		futures[0].get() == 'message 1'
+		!futures[1].done
+		!futures[2].done
+		futures[3].completedExceptionally
+		when:
+		futures[3].get()
+		then:
+		def ex = thrown(ExecutionException)
+		ex.cause instanceof RejectedExecutionException
+	}
+}
@@ -0,0 +1,173 @@
+package brotherdetjr.pauline.telegram;
+
+import brotherdetjr.pauline.core.BroadcastSender;
+import brotherdetjr.pauline.core.Flow;
+import brotherdetjr.pauline.core.SessionStore;
+import brotherdetjr.pauline.telegram.events.TelegramEvent;
+import brotherdetjr.pauline.telegram.transport.HttpTransport;
+import brotherdetjr.pauline.telegram.transport.RateLimitedTransport;
+import brotherdetjr.pauline.telegram.transport.TelegramTransport;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.api.objects.Update;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+import static brotherdetjr.utils.Utils.propagateIfError;
+import static com.google.common.base.Throwables.getStackTraceAsString;
+import static com.google.common.collect.Maps.newConcurrentMap;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+@Slf4j
+public class TelegramBotHost implements Closeable {
+	public static final long DEFAULT_POLL_INTERVAL_MILLIS = 1000;
+	public static final double DEFAULT_MESSAGES_PER_SECOND = 30;
+	public static final int MAX_LONG_POLL_SECONDS = 25;
+
+	private final Executor executor;
+	private final HttpTransport transport;
+	private final SessionStore sessions;
+	private final double messagesPerSecond;
+	private final ScheduledExecutorService poller;
+	private final Map<String, HostedBot> bots = newConcurrentMap();
+
+	public TelegramBotHost(Executor executor,
+						   HttpTransport transport,
+						   SessionStore sessions,
+						   long pollIntervalMillis,
+						   double messagesPerSecond) {
+		this.executor = executor;
+		this.transport = transport;
+		this.sessions = sessions;
+		this.messagesPerSecond = messagesPerSecond;
+		poller = newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder().setNameFormat("pauline-bot-host-poller-%d").setDaemon(true).build()
+		);
+		poller.scheduleWithFixedDelay(this::poll, pollIntervalMillis, pollIntervalMillis, MILLISECONDS);
+	}
+
+	public TelegramBotHost(Executor executor, HttpTransport transport) {
+		this(executor, transport, new SessionStore(), DEFAULT_POLL_INTERVAL_MILLIS, DEFAULT_MESSAGES_PER_SECOND);
+	}
+
+	public Flow.Builder<TelegramRenderer, TelegramEvent> bot(String token, String name) {
+		return bot(TelegramFlowConfigurer.flow().executor(executor).sessions(sessions.namespace(name)), token, name);
+	}
+
+	Flow.Builder<TelegramRenderer, TelegramEvent> bot(
+		Flow.Builder<TelegramRenderer, TelegramEvent> builder, String token, String name) {
+		AtomicReference<Consumer<TelegramEvent>> ref = new AtomicReference<>();
+		RateLimitedTransport botTransport = transport.forToken(token, messagesPerSecond);
+		HostedBot bot = new HostedBot(token, new UpdateHandler(ref), botTransport);
+		if (bots.putIfAbsent(name, bot) != null) {
+			throw new IllegalArgumentException("Bot " + name + " is already hosted");
+		}
+		log.debug("Hosting bot {}", name);
+		if (bots.size() > transport.getPollThreads()) {
+			bots.values().forEach(HostedBot::cancelLongPoll);
+		}
+		return builder
+			.eventSource(ref::set)
+			.rendererFactory(TelegramFlowConfigurer.cachedRenderers(botTransport));
+	}
+
+	public BroadcastSender broadcastSender(String name, LongFunction<Long> chatIds, Function<Object, String> text) {
+		HostedBot bot = bots.get(name);
+		if (bot == null) {
+			throw new IllegalArgumentException("Bot " + name + " is not hosted");
+		}
+		TelegramTransport background = bot.transport.background();
+		return (sessionId, state) -> {
+			Long chatId = chatIds.apply(sessionId);
+			if (chatId == null) {
+				CompletableFuture<?> failed = new CompletableFuture<>();
+				failed.completeExceptionally(new IllegalStateException("No chat known for session " + sessionId));
+				return failed;
+			}
+			return background.sendMessage(chatId, text.apply(state));
+		};
+	}
+
+	@Override
+	public void close() {
+		poller.shutdown();
+		bots.values().forEach(HostedBot::cancelLongPoll);
+	}
+
+	private void poll() {
+		int timeoutSeconds = longPollTimeoutSeconds(bots.size(), transport.getPollThreads());
+		bots.forEach((name, bot) -> {
+			if (bot.polling.compareAndSet(false, true)) {
+				CompletableFuture<List<Update>> updatesFuture = transport.getUpdates(bot.token, bot.offset, timeoutSeconds);
+				updatesFuture.whenComplete((updates, ex) -> {
+					try {
+						if (ex == null) {
+							updates.forEach(update -> bot.handle(name, update));
+						} else if (ex instanceof CancellationException) {
+							log.debug("Long poll of bot {} cancelled", name);
+						} else {
+							log.error("Failed to poll updates for bot {}: {}", name, getStackTraceAsString(ex));
+						}
+					} catch (Throwable ex2) {
+						log.error("Failed to handle updates of bot {}: {}", name, getStackTraceAsString(ex2));
+						propagateIfError(ex2);
+					} finally {
+						bot.longPoll = null;
+						bot.polling.set(false);
+					}
+				});
+				if (timeoutSeconds > 0 && !updatesFuture.isDone()) {
+					bot.longPoll = updatesFuture;
+					if (bots.size() > transport.getPollThreads()) {
+						bot.cancelLongPoll();
+					}
+				}
+			}
+		});
+	}
+
+	static int longPollTimeoutSeconds(int bots, int pollThreads) {
+		return bots <= pollThreads ? MAX_LONG_POLL_SECONDS : 0;
+	}
+
+	@RequiredArgsConstructor
+	private static class HostedBot {
+		private final String token;
+		private final UpdateHandler handler;
+		private final RateLimitedTransport transport;
+		private final AtomicBoolean polling = new AtomicBoolean();
+		private volatile long offset;
+		private volatile CompletableFuture<?> longPoll;
+
+		private void cancelLongPoll() {
+			CompletableFuture<?> future = longPoll;
+			if (future != null) {
+				future.cancel(false);
+			}
+		}
+
+		private void handle(String name, Update update) {
+			try {
+				handler.handle(update);
+			} catch (Throwable ex) {
+				log.error("Failed to handle update {} of bot {}: {}", update.getUpdateId(), name, getStackTraceAsString(ex));
+				propagateIfError(ex);
+			} finally {
+				offset = Math.max(offset, update.getUpdateId() + 1L);
+			}
+		}
+	}
+}
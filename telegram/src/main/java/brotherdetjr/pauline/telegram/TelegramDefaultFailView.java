@@ -6,7 +6,6 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.UUID;
 
-import static com.google.common.base.Throwables.getStackTraceAsString;
 import static java.util.UUID.randomUUID;
 
 @Slf4j
@@ -15,11 +14,11 @@ public class TelegramDefaultFailView implements View<Throwable, TelegramRenderer
 	public void render(Context<Throwable, TelegramRenderer, TelegramEvent> ctx) {
 		TelegramEvent event = ctx.getEvent();
 		UUID uuid = randomUUID();
-		log.error("Error id: {}. User name: {}. Chat id: {}. Stack trace: {}",
+		log.error("Error id: {}. User name: {}. Chat id: {}. Cause: {}",
 			uuid,
 			event.getUserName(),
 			event.getChatId(),
-			getStackTraceAsString(ctx.getState())
+			ctx.getState()
 		);
 		ctx.getRenderer().send("Oops! Something went wrong. Please contact bot administrator. Error id: " + uuid);
 	}
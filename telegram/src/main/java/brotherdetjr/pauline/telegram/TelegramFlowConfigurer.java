@@ -1,7 +1,14 @@
 package brotherdetjr.pauline.telegram;
 
 import brotherdetjr.pauline.core.Flow;
+import brotherdetjr.pauline.core.ThrottledFailView;
 import brotherdetjr.pauline.telegram.events.TelegramEvent;
+import brotherdetjr.pauline.telegram.transport.BotTransport;
+import brotherdetjr.pauline.telegram.transport.TelegramTransport;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
@@ -10,32 +17,87 @@ import org.telegram.telegrambots.TelegramBotsApi;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.exceptions.TelegramApiRequestException;
 
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static com.google.common.collect.Sets.newConcurrentHashSet;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 @UtilityClass
 @Slf4j
 public class TelegramFlowConfigurer {
 
-	private final static TelegramBotsApi telegramBotsApi = new TelegramBotsApi();
+	private final static long FAIL_VIEW_INTERVAL_SECONDS = 10;
+	private final static long RENDERER_CACHE_SIZE = 100_000;
+	private final static long RENDERER_CACHE_EXPIRY_MINUTES = 30;
+	private final static ScheduledExecutorService failViewExecutor = newSingleThreadScheduledExecutor(
+		new ThreadFactoryBuilder().setNameFormat("pauline-fail-view-%d").setDaemon(true).build()
+	);
+	private final static Set<ThrottledFailView<?, ?>> failViews = newConcurrentHashSet();
 
 	static {
-		ApiContextInitializer.init();
+		Runtime.getRuntime().addShutdownHook(
+			new Thread(() -> failViews.forEach(ThrottledFailView::close), "pauline-fail-view-summary")
+		);
 	}
 
 	public static Flow.Builder<TelegramRenderer, TelegramEvent> flow() {
-		return new Flow.Builder<TelegramRenderer, TelegramEvent>().failView(new TelegramDefaultFailView());
+		ThrottledFailView<TelegramRenderer, TelegramEvent> failView = new ThrottledFailView<>(
+			new TelegramDefaultFailView(),
+			failViewExecutor,
+			FAIL_VIEW_INTERVAL_SECONDS,
+			SECONDS
+		);
+		failViews.add(failView);
+		return new Flow.Builder<TelegramRenderer, TelegramEvent>().failView(failView).logFailureTraces(false);
 	}
 
-	@SneakyThrows(TelegramApiRequestException.class)
 	public static Flow.Builder<TelegramRenderer, TelegramEvent> configure(
 		Flow.Builder<TelegramRenderer, TelegramEvent> builder, String token, String name) {
+		return configure(builder, token, name, BotTransport::new);
+	}
+
+	public static Flow.Builder<TelegramRenderer, TelegramEvent> configure(
+		Flow.Builder<TelegramRenderer, TelegramEvent> builder, String token, String name, TelegramBotHost host) {
+		return host.bot(builder, token, name);
+	}
+
+	@SneakyThrows(TelegramApiRequestException.class)
+	private static Flow.Builder<TelegramRenderer, TelegramEvent> configure(
+		Flow.Builder<TelegramRenderer, TelegramEvent> builder,
+		String token,
+		String name,
+		Function<TelegramLongPollingBot, TelegramTransport> transportFactory) {
+		TelegramBotsApi api = LongPolling.api;
 		AtomicReference<Consumer<TelegramEvent>> ref = new AtomicReference<>();
 		TelegramLongPollingBot bot = new TelegramBotImpl(token, name, ref);
-		telegramBotsApi.registerBot(bot);
+		api.registerBot(bot);
 		return builder
 			.eventSource(ref::set)
-			.rendererFactory(e -> new TelegramRendererImpl(bot, e.getChatId()));
+			.rendererFactory(cachedRenderers(transportFactory.apply(bot)));
+	}
+
+	static Function<TelegramEvent, TelegramRenderer> cachedRenderers(TelegramTransport transport) {
+		LoadingCache<Long, TelegramRenderer> renderers = CacheBuilder.newBuilder()
+			.maximumSize(RENDERER_CACHE_SIZE)
+			.expireAfterAccess(RENDERER_CACHE_EXPIRY_MINUTES, MINUTES)
+			.build(CacheLoader.from(chatId -> new TelegramRendererImpl(transport, chatId)));
+		return e -> renderers.getUnchecked(e.getChatId());
+	}
+
+	private static class LongPolling {
+		private final static TelegramBotsApi api;
+
+		static {
+			log.debug("Initializing long polling API context");
+			ApiContextInitializer.init();
+			api = new TelegramBotsApi();
+		}
 	}
 
 }
@@ -0,0 +1,32 @@
+package brotherdetjr.pauline.telegram;
+
+import brotherdetjr.pauline.telegram.events.EventFactory;
+import brotherdetjr.pauline.telegram.events.TelegramEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.api.objects.Update;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+@Slf4j
+@RequiredArgsConstructor
+public class UpdateHandler {
+	private final AtomicReference<Consumer<TelegramEvent>> ref;
+
+	public void handle(Update update) {
+		log.debug("Received update: {}", update);
+		TelegramEvent event = EventFactory.of(update);
+		if (event != null) {
+			Consumer<TelegramEvent> consumer = ref.get();
+			if (consumer != null) {
+				log.debug("Firing event: {}", event);
+				consumer.accept(event);
+			} else {
+				log.warn("No consumer yet");
+			}
+		} else {
+			log.debug("Could not translate update to event");
+		}
+	}
+}
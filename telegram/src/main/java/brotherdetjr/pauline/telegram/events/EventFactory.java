@@ -7,14 +7,15 @@ import org.telegram.telegrambots.api.objects.Update;
 public class EventFactory {
 	public static TelegramEvent of(Update update) {
 		if (update.hasMessage()) {
+			long updateId = update.getUpdateId();
 			long userId = Long.valueOf(update.getMessage().getFrom().getId());
 			String userName = update.getMessage().getFrom().getUserName();
 			long chatId = update.getMessage().getChatId();
 			String text = update.getMessage().getText();
 			if (text != null) {
-				return new TextMessageEvent(userName, userId, chatId, text);
+				return new TextMessageEvent(updateId, userName, userId, chatId, text);
 			} else {
-				return new TelegramEvent(userName, userId, chatId);
+				return new TelegramEvent(updateId, userName, userId, chatId);
 			}
 		} else {
 			return null;
@@ -7,6 +7,7 @@ import lombok.RequiredArgsConstructor;
 @Getter
 @RequiredArgsConstructor
 public class TelegramEvent implements Event {
+	private final long updateId;
 	private final String userName;
 	private final long userId;
 	private final long chatId;
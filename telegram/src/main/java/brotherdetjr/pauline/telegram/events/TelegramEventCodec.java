@@ -0,0 +1,61 @@
+package brotherdetjr.pauline.telegram.events;
+
+import brotherdetjr.pauline.core.eventlog.EventCodec;
+import lombok.SneakyThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class TelegramEventCodec implements EventCodec<TelegramEvent> {
+	private static final byte TELEGRAM_EVENT = 1;
+	private static final byte TEXT_MESSAGE_EVENT = 2;
+
+	@Override
+	@SneakyThrows(IOException.class)
+	public byte[] encode(TelegramEvent event) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeByte(event instanceof TextMessageEvent ? TEXT_MESSAGE_EVENT : TELEGRAM_EVENT);
+		out.writeLong(event.getUpdateId());
+		writeNullable(out, event.getUserName());
+		out.writeLong(event.getUserId());
+		out.writeLong(event.getChatId());
+		if (event instanceof TextMessageEvent) {
+			out.writeUTF(((TextMessageEvent) event).getText());
+		}
+		return bytes.toByteArray();
+	}
+
+	@Override
+	@SneakyThrows(IOException.class)
+	public TelegramEvent decode(byte[] bytes) {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+		byte type = in.readByte();
+		long updateId = in.readLong();
+		String userName = readNullable(in);
+		long userId = in.readLong();
+		long chatId = in.readLong();
+		switch (type) {
+			case TELEGRAM_EVENT:
+				return new TelegramEvent(updateId, userName, userId, chatId);
+			case TEXT_MESSAGE_EVENT:
+				return new TextMessageEvent(updateId, userName, userId, chatId, in.readUTF());
+			default:
+				throw new IllegalArgumentException("Unknown event type: " + type);
+		}
+	}
+
+	private static void writeNullable(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static String readNullable(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+}
@@ -6,8 +6,8 @@ import lombok.Getter;
 public class TextMessageEvent extends TelegramEvent {
 	private final String text;
 
-	public TextMessageEvent(String userName, long userId, long chatId, String text) {
-		super(userName, userId, chatId);
+	public TextMessageEvent(long updateId, String userName, long userId, long chatId, String text) {
+		super(updateId, userName, userId, chatId);
 		this.text = text;
 	}
 }
@@ -0,0 +1,44 @@
+package brotherdetjr.pauline.telegram.transport;
+
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import org.telegram.telegrambots.api.methods.BotApiMethod;
+import org.telegram.telegrambots.api.methods.send.SendMessage;
+import org.telegram.telegrambots.api.objects.Message;
+import org.telegram.telegrambots.bots.AbsSender;
+import org.telegram.telegrambots.exceptions.TelegramApiException;
+import org.telegram.telegrambots.exceptions.TelegramApiRequestException;
+import org.telegram.telegrambots.updateshandlers.SentCallback;
+
+import java.util.concurrent.CompletableFuture;
+
+@RequiredArgsConstructor
+public class BotTransport implements TelegramTransport {
+	private final AbsSender bot;
+
+	@Override
+	@SneakyThrows(TelegramApiException.class)
+	public CompletableFuture<?> sendMessage(long chatId, String text) {
+		CompletableFuture<Message> future = new CompletableFuture<>();
+		SendMessage message = new SendMessage();
+		message.setText(text);
+		message.setChatId(Long.toString(chatId));
+		bot.sendMessageAsync(message, new SentCallback<Message>() {
+			@Override
+			public void onResult(BotApiMethod<Message> botApiMethod, Message message) {
+				future.complete(message);
+			}
+
+			@Override
+			public void onError(BotApiMethod<Message> botApiMethod, TelegramApiRequestException e) {
+				future.completeExceptionally(e);
+			}
+
+			@Override
+			public void onException(BotApiMethod<Message> method, Exception exception) {
+				future.completeExceptionally(exception);
+			}
+		});
+		return future;
+	}
+}
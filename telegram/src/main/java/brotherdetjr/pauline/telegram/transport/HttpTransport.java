@@ -0,0 +1,227 @@
+package brotherdetjr.pauline.telegram.transport;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.telegram.telegrambots.api.objects.Update;
+import org.telegram.telegrambots.exceptions.TelegramApiRequestException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+@Slf4j
+public class HttpTransport implements Closeable {
+	public static final String DEFAULT_BASE_URL = "https://api.telegram.org/bot";
+	public static final int DEFAULT_MAX_CONNECTIONS = 50;
+	public static final int DEFAULT_POLL_THREADS = 4;
+
+	private static final int TIMEOUT_MILLIS = 75_000;
+	private static final int IDLE_CONNECTION_SECONDS = 30;
+	private static final ObjectMapper mapper = new ObjectMapper().configure(FAIL_ON_UNKNOWN_PROPERTIES, false);
+	private static final TypeReference<List<Update>> updatesType = new TypeReference<List<Update>>() {
+	};
+	private static final int MAX_RETAINED_BUFFER_BYTES = 64 * 1024;
+	private static final ThreadLocal<FormBuffer> buffers = ThreadLocal.withInitial(FormBuffer::new);
+
+	private final String baseUrl;
+	private final CloseableHttpClient client;
+	private final ExecutorService executor;
+	private final ExecutorService pollExecutor;
+	private final ScheduledExecutorService scheduler;
+	@Getter
+	private final int pollThreads;
+
+	public HttpTransport(String baseUrl, int maxConnections, int pollThreads) {
+		this.baseUrl = baseUrl;
+		this.pollThreads = pollThreads;
+		PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(maxConnections + pollThreads);
+		connectionManager.setDefaultMaxPerRoute(maxConnections + pollThreads);
+		client = HttpClients.custom()
+			.setConnectionManager(connectionManager)
+			.setDefaultRequestConfig(
+				RequestConfig.custom()
+					.setConnectTimeout(TIMEOUT_MILLIS)
+					.setSocketTimeout(TIMEOUT_MILLIS)
+					.setConnectionRequestTimeout(TIMEOUT_MILLIS)
+					.build()
+			)
+			.evictIdleConnections(IDLE_CONNECTION_SECONDS, SECONDS)
+			.build();
+		executor = newFixedThreadPool(
+			maxConnections,
+			new ThreadFactoryBuilder().setNameFormat("pauline-http-transport-%d").setDaemon(true).build()
+		);
+		pollExecutor = newFixedThreadPool(
+			pollThreads,
+			new ThreadFactoryBuilder().setNameFormat("pauline-http-poller-%d").setDaemon(true).build()
+		);
+		scheduler = newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder().setNameFormat("pauline-http-scheduler-%d").setDaemon(true).build()
+		);
+	}
+
+	public HttpTransport(String baseUrl, int maxConnections) {
+		this(baseUrl, maxConnections, DEFAULT_POLL_THREADS);
+	}
+
+	public HttpTransport() {
+		this(DEFAULT_BASE_URL, DEFAULT_MAX_CONNECTIONS);
+	}
+
+	public TelegramTransport forToken(String token) {
+		String url = baseUrl + token + "/sendMessage";
+		return (chatId, text) -> supplyAsync(
+			() -> post(url, "sendMessage", "chat_id", Long.toString(chatId), "text", text),
+			executor
+		);
+	}
+
+	public RateLimitedTransport forToken(String token, double messagesPerSecond) {
+		return new RateLimitedTransport(forToken(token), messagesPerSecond, scheduler);
+	}
+
+	public CompletableFuture<List<Update>> getUpdates(String token, long offset, int timeoutSeconds) {
+		HttpPost post = new HttpPost(baseUrl + token + "/getUpdates");
+		CompletableFuture<List<Update>> future = supplyAsync(
+			() -> toUpdates(post(
+				post, "getUpdates", "offset", Long.toString(offset), "timeout", Integer.toString(timeoutSeconds)
+			)),
+			pollExecutor
+		);
+		future.whenComplete((updates, ex) -> {
+			if (future.isCancelled()) {
+				post.abort();
+			}
+		});
+		return future;
+	}
+
+	public CompletableFuture<List<Update>> getUpdates(String token, long offset) {
+		return getUpdates(token, offset, 0);
+	}
+
+	@Override
+	public void close() throws IOException {
+		scheduler.shutdown();
+		pollExecutor.shutdown();
+		executor.shutdown();
+		client.close();
+	}
+
+	private JsonNode post(String url, String method, String... params) {
+		return post(new HttpPost(url), method, params);
+	}
+
+	@SneakyThrows({IOException.class, TelegramApiRequestException.class})
+	private JsonNode post(HttpPost post, String method, String... params) {
+		FormBuffer buffer = buffers.get();
+		post.setEntity(buffer.encode(params));
+		try (CloseableHttpResponse response = client.execute(post);
+			 InputStream content = response.getEntity().getContent()) {
+			JsonNode node = mapper.readTree(content);
+			if (!node.path("ok").asBoolean()) {
+				throw new TelegramApiRequestException(
+					"Method " + method + " failed: " + node.path("description").asText()
+				);
+			}
+			log.trace("Method {} succeeded", method);
+			return node.path("result");
+		} finally {
+			buffer.release();
+		}
+	}
+
+	@SneakyThrows(IOException.class)
+	private static List<Update> toUpdates(JsonNode result) {
+		return mapper.readValue(mapper.treeAsTokens(result), updatesType);
+	}
+
+	private static class FormBuffer extends ByteArrayOutputStream {
+		private static final byte[] HEX = "0123456789ABCDEF".getBytes(UTF_8);
+
+		private FormBuffer() {
+			super(512);
+		}
+
+		private ByteArrayEntity encode(String... params) {
+			reset();
+			for (int i = 0; i < params.length; i += 2) {
+				if (i > 0) {
+					write('&');
+				}
+				encode(params[i]);
+				write('=');
+				encode(params[i + 1]);
+			}
+			return new ByteArrayEntity(buf, 0, count, ContentType.APPLICATION_FORM_URLENCODED);
+		}
+
+		private void release() {
+			if (buf.length > MAX_RETAINED_BUFFER_BYTES) {
+				buffers.remove();
+			}
+		}
+
+		private void encode(String value) {
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' ||
+					c == '.' || c == '-' || c == '*' || c == '_') {
+					write(c);
+				} else if (c == ' ') {
+					write('+');
+				} else if (c < 0x80) {
+					percent(c);
+				} else if (c < 0x800) {
+					percent(0xC0 | c >> 6);
+					percent(0x80 | c & 0x3F);
+				} else if (Character.isHighSurrogate(c) && i + 1 < value.length() &&
+					Character.isLowSurrogate(value.charAt(i + 1))) {
+					int codePoint = Character.toCodePoint(c, value.charAt(++i));
+					percent(0xF0 | codePoint >> 18);
+					percent(0x80 | codePoint >> 12 & 0x3F);
+					percent(0x80 | codePoint >> 6 & 0x3F);
+					percent(0x80 | codePoint & 0x3F);
+				} else if (Character.isSurrogate(c)) {
+					percent('?');
+				} else {
+					percent(0xE0 | c >> 12);
+					percent(0x80 | c >> 6 & 0x3F);
+					percent(0x80 | c & 0x3F);
+				}
+			}
+		}
+
+		private void percent(int b) {
+			write('%');
+			write(HEX[b >> 4 & 0xF]);
+			write(HEX[b & 0xF]);
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package brotherdetjr.pauline.telegram.transport;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+public class RateLimitedTransport implements TelegramTransport {
+	public static final int DEFAULT_MAX_QUEUED = 1000;
+
+	private final TelegramTransport delegate;
+	private final ScheduledExecutorService scheduler;
+	private final int maxQueued;
+	private final long intervalNanos;
+	private final AtomicLong nextSlot;
+
+	public RateLimitedTransport(TelegramTransport delegate,
+								double messagesPerSecond,
+								int maxQueued,
+								ScheduledExecutorService scheduler) {
+		this.delegate = delegate;
+		this.scheduler = scheduler;
+		this.maxQueued = maxQueued;
+		intervalNanos = (long) (SECONDS.toNanos(1) / messagesPerSecond);
+		nextSlot = new AtomicLong(System.nanoTime());
+	}
+
+	public RateLimitedTransport(TelegramTransport delegate, double messagesPerSecond, ScheduledExecutorService scheduler) {
+		this(delegate, messagesPerSecond, DEFAULT_MAX_QUEUED, scheduler);
+	}
+
+	@Override
+	public CompletableFuture<?> sendMessage(long chatId, String text) {
+		long now = System.nanoTime();
+		long prev;
+		long slot;
+		do {
+			prev = nextSlot.get();
+			slot = Math.max(prev, now);
+			if (slot - now > maxQueued * intervalNanos) {
+				return failed(new RejectedExecutionException("More than " + maxQueued + " messages are queued"));
+			}
+		} while (!nextSlot.compareAndSet(prev, slot + intervalNanos));
+		long delay = slot - now;
+		if (delay <= 0) {
+			return send(chatId, text);
+		}
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		schedule(() -> send(chatId, text).whenComplete(completing(future)), delay, future);
+		return future;
+	}
+
+	public TelegramTransport background() {
+		return (chatId, text) -> {
+			CompletableFuture<Object> future = new CompletableFuture<>();
+			sendWhenIdle(chatId, text, future);
+			return future;
+		};
+	}
+
+	private void sendWhenIdle(long chatId, String text, CompletableFuture<Object> future) {
+		long now = System.nanoTime();
+		long prev = nextSlot.get();
+		if (prev <= now && nextSlot.compareAndSet(prev, now + intervalNanos)) {
+			send(chatId, text).whenComplete(completing(future));
+		} else {
+			schedule(() -> sendWhenIdle(chatId, text, future), Math.max(prev - now, 0), future);
+		}
+	}
+
+	private void schedule(Runnable task, long delayNanos, CompletableFuture<?> future) {
+		try {
+			scheduler.schedule(task, delayNanos, NANOSECONDS);
+		} catch (Throwable ex) {
+			future.completeExceptionally(ex);
+		}
+	}
+
+	private CompletableFuture<?> send(long chatId, String text) {
+		try {
+			return delegate.sendMessage(chatId, text);
+		} catch (Throwable ex) {
+			return failed(ex);
+		}
+	}
+
+	private static BiConsumer<Object, Throwable> completing(CompletableFuture<Object> future) {
+		return (result, ex) -> {
+			if (ex == null) {
+				future.complete(result);
+			} else {
+				future.completeExceptionally(ex);
+			}
+		};
+	}
+
+	private static CompletableFuture<?> failed(Throwable ex) {
+		CompletableFuture<?> future = new CompletableFuture<>();
+		future.completeExceptionally(ex);
+		return future;
+	}
+}
@@ -0,0 +1,8 @@
+package brotherdetjr.pauline.telegram.transport;
+
+import java.util.concurrent.CompletableFuture;
+
+@FunctionalInterface
+public interface TelegramTransport {
+	CompletableFuture<?> sendMessage(long chatId, String text);
+}
@@ -0,0 +1,101 @@
+package brotherdetjr.pauline.test;
+
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongPredicate;
+
+import static java.util.stream.Collectors.toList;
+
+@RequiredArgsConstructor
+public class SimulationJournal {
+	private final VirtualScheduler scheduler;
+	private final List<Entry> entries = new ArrayList<>();
+	private final Map<Long, Long> lastCompleted = new HashMap<>();
+	private final List<String> recordedViolations = new ArrayList<>();
+
+	public synchronized int fired(long sessionId) {
+		entries.add(new Entry(sessionId, scheduler.now()));
+		return entries.size() - 1;
+	}
+
+	public synchronized void completed(int eventId) {
+		Entry entry = finish(eventId, Outcome.COMPLETED);
+		if (entry == null) {
+			return;
+		}
+		Long previous = lastCompleted.put(entry.sessionId, (long) eventId);
+		if (previous != null && previous > eventId) {
+			recordedViolations.add(
+				"Event " + eventId + " of session " + entry.sessionId + " completed after event " + previous
+			);
+		}
+	}
+
+	public synchronized void rejected(int eventId) {
+		finish(eventId, Outcome.REJECTED);
+	}
+
+	public synchronized long count(Outcome outcome) {
+		return entries.stream().filter(e -> e.outcome == outcome).count();
+	}
+
+	public synchronized List<String> violations(Iterable<Long> sessionIds, LongPredicate busy) {
+		List<String> violations = new ArrayList<>(recordedViolations);
+		for (int i = 0; i < entries.size(); i++) {
+			if (entries.get(i).outcome == null) {
+				violations.add("Event " + i + " of session " + entries.get(i).sessionId + " is lost");
+			}
+		}
+		for (long sessionId : sessionIds) {
+			if (busy.test(sessionId)) {
+				violations.add("Session " + sessionId + " is stuck busy");
+			}
+		}
+		return violations;
+	}
+
+	public synchronized double throughput() {
+		long first = entries.stream().mapToLong(e -> e.firedAt).min().orElse(0L);
+		long last = entries.stream().filter(e -> e.outcome != null).mapToLong(e -> e.finishedAt).max().orElse(0L);
+		return last > first ? (double) count(Outcome.COMPLETED) / (last - first) : 0.0;
+	}
+
+	public synchronized long latencyPercentile(double percentile) {
+		List<Long> latencies = entries.stream()
+			.filter(e -> e.outcome == Outcome.COMPLETED)
+			.map(e -> e.finishedAt - e.firedAt)
+			.sorted()
+			.collect(toList());
+		if (latencies.isEmpty()) {
+			return 0L;
+		}
+		return latencies.get((int) Math.min(latencies.size() - 1, Math.ceil(percentile * latencies.size()) - 1));
+	}
+
+	private Entry finish(int eventId, Outcome outcome) {
+		Entry entry = entries.get(eventId);
+		if (entry.outcome != null) {
+			recordedViolations.add("Event " + eventId + " is " + outcome + " but already " + entry.outcome);
+			return null;
+		}
+		entry.outcome = outcome;
+		entry.finishedAt = scheduler.now();
+		return entry;
+	}
+
+	public enum Outcome {
+		COMPLETED, REJECTED
+	}
+
+	@RequiredArgsConstructor
+	private static class Entry {
+		private final long sessionId;
+		private final long firedAt;
+		private Outcome outcome;
+		private long finishedAt;
+	}
+}
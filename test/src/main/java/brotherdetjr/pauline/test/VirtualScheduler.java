@@ -0,0 +1,115 @@
+package brotherdetjr.pauline.test;
+
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import static java.util.Comparator.comparingLong;
+
+public class VirtualScheduler implements Executor {
+	private final Random random;
+	private final List<Runnable> ready = new ArrayList<>();
+	private final PriorityQueue<Timed> timed = new PriorityQueue<>(
+		comparingLong((Timed t) -> t.time).thenComparingLong(t -> t.seq)
+	);
+	private long now;
+	private long seq;
+	private long executed;
+
+	public VirtualScheduler(long seed) {
+		random = new Random(seed);
+	}
+
+	public synchronized long now() {
+		return now;
+	}
+
+	public synchronized long getExecuted() {
+		return executed;
+	}
+
+	public Random random() {
+		return random;
+	}
+
+	@Override
+	public synchronized void execute(Runnable task) {
+		ready.add(task);
+	}
+
+	public synchronized void schedule(Runnable task, long delay) {
+		if (delay <= 0) {
+			ready.add(task);
+		} else {
+			timed.add(new Timed(now + delay, seq++, task));
+		}
+	}
+
+	public <T> CompletableFuture<T> supply(Supplier<T> supplier, long delay) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		schedule(() -> {
+			try {
+				future.complete(supplier.get());
+			} catch (Throwable ex) {
+				future.completeExceptionally(ex);
+			}
+		}, delay);
+		return future;
+	}
+
+	public <T> CompletableFuture<T> complete(T value, long delay) {
+		return supply(() -> value, delay);
+	}
+
+	public <T> CompletableFuture<T> fail(Throwable ex, long delay) {
+		return supply(() -> {
+			throw ex instanceof RuntimeException ? (RuntimeException) ex : new IllegalStateException(ex);
+		}, delay);
+	}
+
+	public long randomDelay(long maxDelay) {
+		return maxDelay > 0 ? (long) (random.nextDouble() * (maxDelay + 1)) : 0L;
+	}
+
+	public boolean step() {
+		Runnable task;
+		synchronized (this) {
+			if (ready.isEmpty() && !timed.isEmpty()) {
+				now = timed.peek().time;
+				while (!timed.isEmpty() && timed.peek().time == now) {
+					ready.add(timed.poll().task);
+				}
+			}
+			if (ready.isEmpty()) {
+				return false;
+			}
+			int last = ready.size() - 1;
+			int index = random.nextInt(ready.size());
+			task = ready.get(index);
+			ready.set(index, ready.get(last));
+			ready.remove(last);
+			executed++;
+		}
+		task.run();
+		return true;
+	}
+
+	public void runUntilIdle() {
+		while (step()) {
+			// stepping
+		}
+	}
+
+	@RequiredArgsConstructor
+	private static class Timed {
+		private final long time;
+		private final long seq;
+		private final Runnable task;
+	}
+}